@@ -0,0 +1,380 @@
+package benchmark;
+
+import io.ExtendedSimpleSudoku;
+import io.GridSudoku;
+import io.SadMan;
+import io.SimpleSudoku;
+import io.SuDokuSolver;
+import io.SudokuFormat;
+import io.VBForums;
+import io.WebFriendly;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import sudoku.DancingLinksEngine;
+import sudoku.SolutionCache;
+import sudoku.SolverEngine;
+import sudoku.SolverEngines;
+import sudoku.Sudoku;
+
+/**
+ * Measures the performance of parsing, solving, validating, loading and
+ * saving sudokus on the puzzle corpus in sudokus/corpus.
+ *
+ * Every benchmark is warmed up first and then measured in a number of
+ * iterations of fixed duration, in the manner of JMH. Each operation handles
+ * the next puzzle of the corpus. The average time per operation and its
+ * standard deviation over the iterations are reported, together with the
+ * number of bytes allocated per operation by the measuring thread. The solve
+ * loop benchmarks reuse parsed sudokus and must not allocate at all; the
+ * benchmark fails with an IllegalStateException when they do. A warmup which
+ * is too short to let the compiler settle may show a few stray bytes. The
+ * solution cache is measured against the engine it wraps, and the benchmark
+ * fails as well when a cache hit is not cheaper than solving the puzzle.
+ *
+ * Usage: Benchmark [-corpus easy|hard|pathological] [-filter text]
+ * [-warmup ms] [-time ms] [-iterations n]
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class Benchmark {
+	// The directory with the corpus files.
+	private static final String CORPUS_DIRECTORY = "sudokus/corpus/";
+	// The corpus files which are measured by default.
+	private static final String[] CORPORA = { "easy", "hard", "pathological" };
+	// The duration of the warmup in milliseconds.
+	private long warmup = 2000;
+	// The duration of each measurement iteration in milliseconds.
+	private long time = 1000;
+	// The number of measurement iterations.
+	private int iterations = 5;
+	// Only benchmarks whose name contains this text are run.
+	private String filter = "";
+	// The value every operation contributes to, so no work is optimized away.
+	private long sink = 0;
+	// The number of operations run by the last call of iterate.
+	private long operations = 0;
+	// The bean which reports the bytes allocated by a thread, or null when
+	// the virtual machine does not support it.
+	private final com.sun.management.ThreadMXBean threads = getThreadBean();
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args
+	 *            The options of the benchmark.
+	 * @throws IOException
+	 *             When the corpus cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		Benchmark benchmark = new Benchmark();
+		String[] corpora = CORPORA;
+
+		for (int i = 0; i + 1 < args.length; i += 2)
+			if (args[i].equals("-corpus"))
+				corpora = new String[] { args[i + 1] };
+			else if (args[i].equals("-filter"))
+				benchmark.filter = args[i + 1];
+			else if (args[i].equals("-warmup"))
+				benchmark.warmup = Long.parseLong(args[i + 1]);
+			else if (args[i].equals("-time"))
+				benchmark.time = Long.parseLong(args[i + 1]);
+			else if (args[i].equals("-iterations"))
+				benchmark.iterations = Integer.parseInt(args[i + 1]);
+			else
+				throw new IllegalArgumentException("Unknown option "
+						+ args[i]);
+
+		for (String corpus : corpora)
+			benchmark.run(corpus, readCorpus(CORPUS_DIRECTORY + corpus
+					+ ".txt"));
+		if (benchmark.sink == 42)
+			System.out.println();
+	}
+
+	/**
+	 * Reads the puzzles of a corpus file, one per line.
+	 *
+	 * @param filename
+	 *            The name of the corpus file.
+	 * @return the puzzles as strings of 81 digits.
+	 * @throws IOException
+	 *             When the file cannot be read.
+	 */
+	private static String[] readCorpus(String filename) throws IOException {
+		ArrayList<String> puzzles = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(new File(
+				filename)));
+		String line;
+		while ((line = reader.readLine()) != null)
+			if (!line.trim().isEmpty())
+				puzzles.add(line.trim().replace('.', '0'));
+		reader.close();
+		return puzzles.toArray(new String[puzzles.size()]);
+	}
+
+	/**
+	 * Runs every benchmark on the given corpus.
+	 *
+	 * @param name
+	 *            The name of the corpus.
+	 * @param puzzles
+	 *            The puzzles of the corpus.
+	 * @throws IOException
+	 *             When the temporary files cannot be written.
+	 */
+	private void run(String name, final String[] puzzles) throws IOException {
+		System.out.println("Corpus " + name + " (" + puzzles.length
+				+ " puzzles)");
+
+		measure("parse", puzzles.length, new Operation() {
+			@Override
+			public long run(int i) {
+				return new Sudoku(puzzles[i]).getValueAt(0, 0);
+			}
+		});
+
+		measure("solveCompletely", puzzles.length, new Operation() {
+			@Override
+			public long run(int i) {
+				Sudoku sudoku = new Sudoku(puzzles[i]);
+				sudoku.solveCompletely();
+				return sudoku.getValueAt(8, 8);
+			}
+		});
+
+		for (final boolean propagation : new boolean[] { false, true }) {
+			final Sudoku[] parsed = new Sudoku[puzzles.length];
+			for (int i = 0; i < puzzles.length; i++) {
+				parsed[i] = new Sudoku(puzzles[i]);
+				parsed[i].setPropagation(propagation);
+			}
+			measure(propagation ? "solve loop propagation" : "solve loop",
+					puzzles.length, new Operation() {
+						@Override
+						public long run(int i) {
+							parsed[i].reset();
+							parsed[i].solveCompletely();
+							return parsed[i].getValueAt(8, 8);
+						}
+					}, true);
+		}
+
+		for (String engineName : SolverEngines.getInstance().getEngineNames()) {
+			final SolverEngine engine = SolverEngines.getInstance().getEngine(
+					engineName);
+			measure("engine " + engineName, puzzles.length, new Operation() {
+				@Override
+				public long run(int i) {
+					return engine.solve(puzzles[i]).charAt(80);
+				}
+			});
+		}
+
+		final SolverEngine wrapped = new DancingLinksEngine();
+		final SolutionCache cache = new SolutionCache(wrapped, puzzles.length);
+		for (String puzzle : puzzles)
+			cache.solve(puzzle);
+		double solve = measure("cache wrapped solve", puzzles.length,
+				new Operation() {
+					@Override
+					public long run(int i) {
+						return wrapped.solve(puzzles[i]).charAt(80);
+					}
+				});
+		double hit = measure("cache hit", puzzles.length, new Operation() {
+			@Override
+			public long run(int i) {
+				return cache.solve(puzzles[i]).charAt(80);
+			}
+		});
+		if (hit >= solve)
+			throw new IllegalStateException("a cache hit takes " + hit / 1000
+					+ " us, solving takes " + solve / 1000 + " us!");
+
+		final Sudoku[] solved = new Sudoku[puzzles.length];
+		for (int i = 0; i < puzzles.length; i++) {
+			solved[i] = new Sudoku(puzzles[i]);
+			solved[i].solveCompletely();
+		}
+		measure("isValidSolution", puzzles.length, new Operation() {
+			@Override
+			public long run(int i) {
+				return solved[i].isValidSolution() ? 1 : 0;
+			}
+		});
+
+		SudokuFormat[] formats = { new VBForums(), new SimpleSudoku(),
+				new ExtendedSimpleSudoku(), new SadMan(), new SuDokuSolver(),
+				new WebFriendly(), new GridSudoku() };
+		final Sudoku[] sudokus = new Sudoku[puzzles.length];
+		for (int i = 0; i < puzzles.length; i++)
+			sudokus[i] = new Sudoku(puzzles[i]);
+		for (final SudokuFormat format : formats) {
+			String formatName = format.getClass().getSimpleName();
+			final String[] files = new String[puzzles.length];
+			for (int i = 0; i < puzzles.length; i++) {
+				File file = File.createTempFile("benchmark",
+						format.getSupportedExtensions()[0]);
+				file.deleteOnExit();
+				files[i] = file.getPath();
+				format.save(files[i], sudokus[i]);
+			}
+
+			measure("load " + formatName, puzzles.length, new Operation() {
+				@Override
+				public long run(int i) throws IOException {
+					return format.load(files[i]).length();
+				}
+			});
+			measure("save " + formatName, puzzles.length, new Operation() {
+				@Override
+				public long run(int i) throws IOException {
+					format.save(files[i], sudokus[i]);
+					return i;
+				}
+			});
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Warms up and measures the given operation, and prints the result.
+	 *
+	 * @param name
+	 *            The name of the benchmark.
+	 * @param count
+	 *            The number of puzzles the operation cycles through.
+	 * @param operation
+	 *            The operation to measure.
+	 * @return the average time of an operation in nanoseconds, or NaN when
+	 *         the benchmark is filtered out.
+	 * @throws IOException
+	 *             When the operation fails.
+	 */
+	private double measure(String name, int count, Operation operation)
+			throws IOException {
+		return measure(name, count, operation, false);
+	}
+
+	/**
+	 * Warms up and measures the given operation, and prints the result.
+	 *
+	 * @param name
+	 *            The name of the benchmark.
+	 * @param count
+	 *            The number of puzzles the operation cycles through.
+	 * @param operation
+	 *            The operation to measure.
+	 * @param allocationFree
+	 *            Whether the operation must not allocate after the warmup.
+	 * @return the average time of an operation in nanoseconds, or NaN when
+	 *         the benchmark is filtered out.
+	 * @throws IOException
+	 *             When the operation fails.
+	 * @throws IllegalStateException
+	 *             When the operation must not allocate but did.
+	 */
+	private double measure(String name, int count, Operation operation,
+			boolean allocationFree) throws IOException, IllegalStateException {
+		if (!name.contains(filter))
+			return Double.NaN;
+		iterate(count, operation, warmup);
+
+		double[] results = new double[iterations];
+		double mean = 0;
+		long total = 0;
+		long allocated = getAllocatedBytes();
+		for (int i = 0; i < iterations; i++) {
+			results[i] = iterate(count, operation, time);
+			mean += results[i] / iterations;
+			total += operations;
+		}
+		allocated = getAllocatedBytes() - allocated;
+		double variance = 0;
+		for (double result : results)
+			variance += (result - mean) * (result - mean) / iterations;
+
+		System.out.println(String.format(
+				"  %-28s %12.3f us/op +- %8.3f %12.1f B/op", name, mean / 1000,
+				Math.sqrt(variance) / 1000, (double) allocated / total));
+		if (allocationFree && allocated > 0)
+			throw new IllegalStateException(name + " allocated " + allocated
+					+ " bytes in " + total + " operations!");
+		return mean;
+	}
+
+	/**
+	 * Runs the operation on the puzzles in turn for the given duration.
+	 *
+	 * @param count
+	 *            The number of puzzles the operation cycles through.
+	 * @param operation
+	 *            The operation to run.
+	 * @param duration
+	 *            The duration in milliseconds.
+	 * @return the average time of an operation in nanoseconds.
+	 * @throws IOException
+	 *             When the operation fails.
+	 */
+	private double iterate(int count, Operation operation, long duration)
+			throws IOException {
+		long end = System.nanoTime() + duration * 1000000;
+		long start = System.nanoTime();
+		operations = 0;
+		long now;
+		do {
+			sink += operation.run((int) (operations++ % count));
+		} while ((now = System.nanoTime()) < end);
+		return (double) (now - start) / operations;
+	}
+
+	/**
+	 * Returns the bean which reports the bytes allocated by a thread.
+	 * 
+	 * @return the bean, or null when allocations cannot be measured.
+	 */
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+			return null;
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		if (!bean.isThreadAllocatedMemorySupported())
+			return null;
+		bean.setThreadAllocatedMemoryEnabled(true);
+		return bean;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread so far.
+	 * 
+	 * @return the allocated bytes, or 0 when they cannot be measured.
+	 */
+	private long getAllocatedBytes() {
+		if (threads == null)
+			return 0;
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * An operation on a single puzzle of the corpus.
+	 */
+	private interface Operation {
+		/**
+		 * Runs the operation on the puzzle with the given index.
+		 *
+		 * @param i
+		 *            The index of the puzzle.
+		 * @return a value derived from the result of the operation.
+		 * @throws IOException
+		 *             When the operation fails.
+		 */
+		public long run(int i) throws IOException;
+	}
+}
@@ -1,11 +1,6 @@
 package io;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 
 import sudoku.Sudoku;
@@ -20,67 +15,40 @@ public class ExtendedSimpleSudoku extends SudokuFormat {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see io.SudokuFormat#load(java.lang.String)
+	 * @see io.SudokuFormat#read(io.SudokuReader, char[])
 	 */
 	@Override
-	public String load(String filename) throws IOException {
-		try {
-			FileReader fileReader = new FileReader(new File(filename));
-			BufferedReader reader = new BufferedReader(fileReader);
+	protected int read(SudokuReader reader, char[] cells) throws IOException {
+		if (!reader.readNonEmptyLine())
+			return -1;
+		// Nine rows of 13 characters within a border, with a line after the
+		// third and sixth.
+		int count = 0;
+		for (int currentLine = 0; currentLine < 13; currentLine++) {
+			if (currentLine > 0)
+				nextLine(reader);
+			if (currentLine == 0 || currentLine == 4 || currentLine == 8
+					|| currentLine == 12)
+				continue;
 
-			int currentLine = 0;
-			String result = "";
-			String line;
-			while ((line = reader.readLine()) != null) {
-				if (currentLine == 0 || currentLine == 4 || currentLine == 8
-						|| currentLine == 12) {
-					currentLine++;
-					continue;
-				}
+			if (reader.getLineLength() != 13)
+				throw reader.error("Invalid length of line");
 
-				line = line.replace('.', '0');
-
-				if (line.length() != 13) {
-					reader.close();
-					fileReader.close();
-					throw new IllegalArgumentException(
-							"Invalid length of line!");
-				}
-
-				for (int i = 0; i < line.length(); i++)
-					if (i == 0 || i == 4 || i == 8 || i == 12)
-						continue;
-					else if (!isValid(line.charAt(i))) {
-						reader.close();
-						fileReader.close();
-						throw new IllegalArgumentException(
-								"Invalid character at position " + i
-										+ " with value '" + line.charAt(i)
-										+ "' detected!");
-					}
-					else
-						result+=line.charAt(i);
-				currentLine++;
-			}
-
-			reader.close();
-			fileReader.close();
-			return result;
-		} catch (FileNotFoundException e) {
-			throw new IOException("The file could not be found!");
+			for (int i = 0; i < 13; i++)
+				if (i != 0 && i != 4 && i != 8 && i != 12)
+					cells[count++] = cellAt(reader, i);
 		}
+		return count;
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see io.SudokuFormat#save(java.lang.String, sudoku.Sudoku)
+	 * @see io.SudokuFormat#write(java.io.BufferedWriter, sudoku.Sudoku)
 	 */
 	@Override
-	public void save(String filename, Sudoku sudoku) throws IOException {
-		FileWriter fileWriter = new FileWriter(new File(filename));
-		BufferedWriter writer = new BufferedWriter(fileWriter);
-
+	public void write(BufferedWriter writer, Sudoku sudoku) throws IOException {
+		checkRegular(sudoku);
 		writer.write("*-----------*");
 		writer.newLine();
 		for (int i = 0; i < 9; i++) {
@@ -102,9 +70,6 @@ public class ExtendedSimpleSudoku extends SudokuFormat {
 		}
 		writer.newLine();
 		writer.write("*-----------*");
-
-		writer.close();
-		fileWriter.close();
 	}
 
 	/*
@@ -0,0 +1,75 @@
+package io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+
+import sudoku.Layout;
+import sudoku.Sudoku;
+
+/**
+ * Reads the grid format, which stores sudokus of any size as one line per row.
+ * Empty cells are written as a dot, the values above 9 as the letters A to P.
+ * The size of the sudoku follows from the length of the first row.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class GridSudoku extends SudokuFormat {
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see io.SudokuFormat#read(io.SudokuReader, char[])
+	 */
+	@Override
+	protected int read(SudokuReader reader, char[] cells) throws IOException {
+		if (!reader.readNonEmptyLine())
+			return -1;
+		reader.trimLine();
+		int size = reader.getLineLength();
+		if (size * size > cells.length)
+			throw reader.error("Invalid length of line");
+		for (int row = 0; row < size; row++) {
+			if (row > 0) {
+				if (!reader.readNonEmptyLine())
+					throw reader.error("Invalid number of lines");
+				reader.trimLine();
+			}
+			if (reader.getLineLength() != size)
+				throw reader.error("Invalid length of line");
+			for (int i = 0; i < size; i++) {
+				int value = Layout.toValue(reader.charAt(i));
+				if (value < 0 || value > size)
+					throw reader.error("Invalid character detected");
+				cells[row * size + i] = Layout.toChar(value);
+			}
+		}
+		return size * size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see io.SudokuFormat#write(java.io.BufferedWriter, sudoku.Sudoku)
+	 */
+	@Override
+	public void write(BufferedWriter writer, Sudoku sudoku) throws IOException {
+		for (int i = 0; i < sudoku.getSize(); i++) {
+			for (int k = 0; k < sudoku.getSize(); k++) {
+				int val = sudoku.getValueAt(i, k);
+				writer.write(val == 0 ? '.' : Layout.toChar(val));
+			}
+			if (i < sudoku.getSize() - 1)
+				writer.newLine();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see io.SudokuFormat#getSupportedExtensions()
+	 */
+	@Override
+	public String[] getSupportedExtensions() {
+		return new String[] { ".grid" };
+	}
+}
@@ -1,32 +1,56 @@
 package io;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 
+import sudoku.Layout;
+
 /**
  * Class for loading sudokus.
  * 
+ * The format of a file is detected from its first lines, which are only read
+ * once: the [Puzzle] header, the borders and separators of the formats with
+ * lines between the subgrids and the lengths of the rows. Only when they do
+ * not match any format the extension decides.
+ * 
  * @author Niels
  * @version 0.1
  */
 public class LoadSudoku {
 	// The singleton instance of the file loader.
 	private static LoadSudoku instance;
+	// The number of characters at the start of a file from which its format
+	// is detected.
+	private static final int DETECT_LENGTH = 4096;
 
 	// The list with supported formats.
 	private ArrayList<SudokuFormat> formats = new ArrayList<SudokuFormat>();
+	// The formats which are detected from the content.
+	private final SudokuFormat vbForums = new VBForums();
+	private final SudokuFormat simpleSudoku = new SimpleSudoku();
+	private final SudokuFormat extendedSimpleSudoku = new ExtendedSimpleSudoku();
+	private final SudokuFormat sadMan = new SadMan();
+	private final SudokuFormat suDokuSolver = new SuDokuSolver();
+	private final SudokuFormat gridSudoku = new GridSudoku();
+	// The format with a sudoku per line, for files with another extension.
+	private final SudokuFormat lineFormat = new WebFriendly();
 
 	/**
 	 * Singleton constuctor.
 	 */
 	private LoadSudoku() {
-		formats.add(new VBForums());
-		formats.add(new SimpleSudoku());
-		formats.add(new ExtendedSimpleSudoku());
-		formats.add(new SadMan());
-		formats.add(new SuDokuSolver());
-		formats.add(new WebFriendly());
+		formats.add(vbForums);
+		formats.add(simpleSudoku);
+		formats.add(extendedSimpleSudoku);
+		formats.add(sadMan);
+		formats.add(suDokuSolver);
+		formats.add(lineFormat);
+		formats.add(gridSudoku);
 	}
 
 	/**
@@ -34,7 +58,7 @@ public class LoadSudoku {
 	 * 
 	 * @return a singleton instance for the fileloader.
 	 */
-	public static LoadSudoku getInstance() {
+	public static synchronized LoadSudoku getInstance() {
 		if (instance == null)
 			instance = new LoadSudoku();
 		return instance;
@@ -59,24 +83,190 @@ public class LoadSudoku {
 	}
 
 	/**
-	 * Loads a sudoku from the given filename.
+	 * Returns the format in which a file with the given filename is read.
 	 * 
 	 * @param filename
 	 *            The name of the file.
-	 * @return the sudoku string.
+	 * @return the format for the extension of the file.
+	 * @throws IllegalArgumentException
+	 *             When no format supports the extension.
 	 */
-	public String loadSudoku(String filename) throws IllegalArgumentException {
+	public SudokuFormat getFormat(String filename)
+			throws IllegalArgumentException {
 		int pos = filename.lastIndexOf('.');
-		String extension = filename.substring(pos);
+		String extension = pos < 0 ? "" : filename.substring(pos);
 		for (SudokuFormat format : formats)
 			if (format.supports(extension))
-				try {
-					return format.load(filename);
-				} catch (IOException e) {
-					System.err.println(e.getMessage());
-				} catch (IllegalArgumentException e) {
-					System.err.println(e.getMessage());
-				}
+				return format;
+		throw new IllegalArgumentException("The given file cannot be read!");
+	}
+
+	/**
+	 * Opens a reader of all sudokus in the given file, in the format detected
+	 * from its content. When the content does not match a format, the
+	 * extension decides, and a file with another extension is read with a
+	 * sudoku per line.
+	 * 
+	 * @param filename
+	 *            The name of the file.
+	 * @return the reader of the sudokus, which has to be closed.
+	 * @throws IOException
+	 *             When the file cannot be found or read.
+	 */
+	public SudokuReader openSudokus(String filename) throws IOException {
+		BufferedReader reader;
+		try {
+			reader = new BufferedReader(new FileReader(new File(filename)),
+					2 * DETECT_LENGTH);
+		} catch (FileNotFoundException e) {
+			throw new IOException("The file could not be found!");
+		}
+		try {
+			return new SudokuReader(detectFormat(reader, filename), reader);
+		} catch (IOException e) {
+			reader.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Detects the format of the sudokus of the given reader from its first
+	 * characters, after which the reader is reset to where it was. When they
+	 * do not match a format, the extension of the given name decides.
+	 * 
+	 * @param reader
+	 *            The reader of the sudokus.
+	 * @param filename
+	 *            The name of the file, or null when there is no file.
+	 * @return the format of the sudokus.
+	 * @throws IOException
+	 *             When the reader cannot be read.
+	 */
+	public SudokuFormat detectFormat(BufferedReader reader, String filename)
+			throws IOException {
+		char[] buffer = new char[DETECT_LENGTH];
+		int length = 0, read;
+		reader.mark(DETECT_LENGTH);
+		while (length < buffer.length
+				&& (read = reader.read(buffer, length, buffer.length - length)) > 0)
+			length += read;
+		reader.reset();
+
+		SudokuFormat format = detectFormat(buffer, length);
+		if (format != null)
+			return format;
+		if (filename != null)
+			try {
+				return getFormat(filename);
+			} catch (IllegalArgumentException e) {
+				// Read files with an unknown extension per line.
+			}
+		return lineFormat;
+	}
+
+	/**
+	 * Detects the format from the lines at the start of a file.
+	 * 
+	 * @param buffer
+	 *            The characters at the start of the file.
+	 * @param length
+	 *            The number of characters.
+	 * @return the format, or null when the lines do not match a format.
+	 */
+	private SudokuFormat detectFormat(char[] buffer, int length) {
+		// The non-empty lines, without white space at their end. A grid of
+		// 25 rows is the largest number of lines which is needed.
+		String[] lines = new String[Layout.MAX_BOX_SIZE * Layout.MAX_BOX_SIZE];
+		int count = 0;
+		int start = 0;
+		for (int i = 0; i <= length && count < lines.length; i++)
+			if (i == length || buffer[i] == '\n') {
+				// A line cut off by the end of the buffer is incomplete.
+				if (i == length && length == buffer.length)
+					break;
+				int end = i;
+				while (end > start && Character.isWhitespace(buffer[end - 1]))
+					end--;
+				if (end > start)
+					lines[count++] = new String(buffer, start, end - start);
+				start = i + 1;
+			}
+		if (count == 0)
+			return null;
+
+		String first = lines[0];
+		String trimmed = first.trim();
+		if (trimmed.equals("[Puzzle]"))
+			return sadMan;
+		if (first.charAt(0) == '*' || first.charAt(0) == '|')
+			return extendedSimpleSudoku;
+		if (first.indexOf('|') >= 0)
+			return first.length() >= 22 ? suDokuSolver : simpleSudoku;
+		if (trimmed.length() == 9)
+			return vbForums;
+		if (isGrid(lines, count, trimmed.length()))
+			return gridSudoku;
+		if (trimmed.length() >= 16)
+			return lineFormat;
+		return null;
+	}
+
+	/**
+	 * Returns whether the given lines start with the rows of a grid with the
+	 * given number of rows and columns. Since the rows of a 16x16 grid are
+	 * as long as a 4x4 sudoku on a line, such a grid must hold a value above
+	 * 4.
+	 * 
+	 * @param lines
+	 *            The non-empty lines.
+	 * @param count
+	 *            The number of lines.
+	 * @param size
+	 *            The length of the first line.
+	 * @return whether the lines are the rows of a grid.
+	 */
+	private static boolean isGrid(String[] lines, int count, int size) {
+		int boxSize = (int) Math.round(Math.sqrt(size));
+		if (boxSize * boxSize != size || boxSize < Layout.MIN_BOX_SIZE
+				|| boxSize > Layout.MAX_BOX_SIZE || count < size)
+			return false;
+		boolean large = false;
+		for (int i = 0; i < size; i++) {
+			String line = lines[i].trim();
+			if (line.length() != size)
+				return false;
+			for (int k = 0; k < size; k++) {
+				int value = Layout.toValue(line.charAt(k));
+				if (value < 0 || value > size)
+					return false;
+				large |= value > boxSize;
+			}
+		}
+		return large || size != 16;
+	}
+
+	/**
+	 * Loads a sudoku from the given filename. The file is read once, with
+	 * the format detected from its content.
+	 * 
+	 * @param filename
+	 *            The name of the file.
+	 * @return the sudoku string.
+	 */
+	public String loadSudoku(String filename) throws IllegalArgumentException {
+		try {
+			SudokuReader reader = openSudokus(filename);
+			try {
+				String sudoku = reader.next();
+				if (sudoku != null)
+					return sudoku;
+				System.err.println("The sudoku is empty!");
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+		}
 		throw new IllegalArgumentException("The given file cannot be read!");
 	}
 }
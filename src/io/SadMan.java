@@ -1,11 +1,6 @@
 package io;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 
 import sudoku.Sudoku;
@@ -20,55 +15,35 @@ public class SadMan extends SudokuFormat {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see io.SudokuFormat#load(java.lang.String)
+	 * @see io.SudokuFormat#read(io.SudokuReader, char[])
 	 */
 	@Override
-	public String load(String filename) throws IOException {
-		try {
-			FileReader fileReader = new FileReader(new File(filename));
-			BufferedReader reader = new BufferedReader(fileReader);
-
-			String result = "";
-			String line = reader.readLine();
-			if (!line.equals("[Puzzle]"))
-				System.err
-						.println("the header [Puzzle] was not found while reading! Continuing anyway...");
-			while ((line = reader.readLine()) != null) {
-				line = line.replace('.', '0');
-
-				if (line.length() != 9) {
-					reader.close();
-					fileReader.close();
-					throw new IOException("Invalid length of line!");
-				}
-				for (int i = 0; i < line.length(); i++)
-					if (!isValid(line.charAt(i))) {
-						reader.close();
-						fileReader.close();
-						throw new IOException("Invalid character detected!");
-					}
-					else
-						result+=line.charAt(i);
-			}
-
-			reader.close();
-			fileReader.close();
-			return result;
-		} catch (FileNotFoundException e) {
-			throw new IOException("The file could not be found!");
+	protected int read(SudokuReader reader, char[] cells) throws IOException {
+		if (!reader.readNonEmptyLine())
+			return -1;
+		// The header is optional.
+		if (reader.isLine("[Puzzle]"))
+			nextLine(reader);
+		int count = 0;
+		for (int row = 0; row < 9; row++) {
+			if (row > 0)
+				nextLine(reader);
+			if (reader.getLineLength() != 9)
+				throw reader.error("Invalid length of line");
+			for (int i = 0; i < 9; i++)
+				cells[count++] = cellAt(reader, i);
 		}
+		return count;
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see io.SudokuFormat#save(java.lang.String, sudoku.Sudoku)
+	 * @see io.SudokuFormat#write(java.io.BufferedWriter, sudoku.Sudoku)
 	 */
 	@Override
-	public void save(String filename, Sudoku sudoku) throws IOException {
-		FileWriter fileWriter = new FileWriter(new File(filename));
-		BufferedWriter writer = new BufferedWriter(fileWriter);
-
+	public void write(BufferedWriter writer, Sudoku sudoku) throws IOException {
+		checkRegular(sudoku);
 		writer.write("[Puzzle]");
 		writer.newLine();
 		for (int i = 0; i < 9; i++) {
@@ -79,9 +54,6 @@ public class SadMan extends SudokuFormat {
 			if (i < 8)
 				writer.newLine();
 		}
-
-		writer.close();
-		fileWriter.close();
 	}
 
 	/*
@@ -1,11 +1,6 @@
 package io;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 
 import sudoku.Sudoku;
@@ -20,65 +15,38 @@ public class SimpleSudoku extends SudokuFormat {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see io.SudokuFormat#load(java.lang.String)
+	 * @see io.SudokuFormat#read(io.SudokuReader, char[])
 	 */
 	@Override
-	public String load(String filename) throws IOException {
-		try {
-			FileReader fileReader = new FileReader(new File(filename));
-			BufferedReader reader = new BufferedReader(fileReader);
+	protected int read(SudokuReader reader, char[] cells) throws IOException {
+		if (!reader.readNonEmptyLine())
+			return -1;
+		// Nine rows of 11 characters, with a line after the third and sixth.
+		int count = 0;
+		for (int currentLine = 0; currentLine < 11; currentLine++) {
+			if (currentLine > 0)
+				nextLine(reader);
+			if (currentLine == 3 || currentLine == 7)
+				continue;
 
-			int currentLine = 0;
-			String result = "";
-			String line;
-			while ((line = reader.readLine()) != null) {
-				if (currentLine == 3 || currentLine == 7) {
-					currentLine++;
-					continue;
-				}
+			if (reader.getLineLength() != 11)
+				throw reader.error("Invalid length of line");
 
-				line = line.replace('.', '0');
-
-				if (line.length() != 11) {
-					reader.close();
-					fileReader.close();
-					throw new IllegalArgumentException(
-							"Invalid length of line!");
-				}
-
-				for (int i = 0; i < line.length(); i++)
-					if (i == 3 || i == 7)
-						continue;
-					else if (!isValid(line.charAt(i))) {
-						reader.close();
-						fileReader.close();
-						throw new IllegalArgumentException(
-								"Invalid character at position " + i
-										+ " with value '" + line.charAt(i)
-										+ "' detected!");
-					} else
-						result += line.charAt(i);
-				currentLine++;
-			}
-
-			reader.close();
-			fileReader.close();
-			return result;
-		} catch (FileNotFoundException e) {
-			throw new IOException("The file could not be found!");
+			for (int i = 0; i < 11; i++)
+				if (i != 3 && i != 7)
+					cells[count++] = cellAt(reader, i);
 		}
+		return count;
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see io.SudokuFormat#save(java.lang.String, sudoku.Sudoku)
+	 * @see io.SudokuFormat#write(java.io.BufferedWriter, sudoku.Sudoku)
 	 */
 	@Override
-	public void save(String filename, Sudoku sudoku) throws IOException {
-		FileWriter fileWriter = new FileWriter(new File(filename));
-		BufferedWriter writer = new BufferedWriter(fileWriter);
-
+	public void write(BufferedWriter writer, Sudoku sudoku) throws IOException {
+		checkRegular(sudoku);
 		for (int i = 0; i < 9; i++) {
 			for (int k = 0; k < 9; k++) {
 				int val = sudoku.getValueAt(i, k);
@@ -93,9 +61,6 @@ public class SimpleSudoku extends SudokuFormat {
 				writer.newLine();
 			}
 		}
-
-		writer.close();
-		fileWriter.close();
 	}
 
 	/*
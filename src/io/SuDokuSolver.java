@@ -1,11 +1,6 @@
 package io;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 
 import sudoku.Sudoku;
@@ -20,62 +15,38 @@ public class SuDokuSolver extends SudokuFormat {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see io.SudokuFormat#load(java.lang.String)
+	 * @see io.SudokuFormat#read(io.SudokuReader, char[])
 	 */
 	@Override
-	public String load(String filename) throws IOException {
-		try {
-			FileReader fileReader = new FileReader(new File(filename));
-			BufferedReader reader = new BufferedReader(fileReader);
+	protected int read(SudokuReader reader, char[] cells) throws IOException {
+		if (!reader.readNonEmptyLine())
+			return -1;
+		// Nine rows with the cells at the odd positions, with a line after
+		// the third and sixth.
+		int count = 0;
+		for (int currentLine = 0; currentLine < 11; currentLine++) {
+			if (currentLine > 0)
+				nextLine(reader);
+			if (currentLine == 3 || currentLine == 7)
+				continue;
 
-			int currentLine=0;
-			String result = "";
-			String line;
-			while ((line = reader.readLine()) != null) {
-				if (currentLine==3||currentLine==7) {
-					currentLine++;
-					continue;
-				}
-				line = line.replace('.', '0');
-
-				if (line.length() < 22) {
-					reader.close();
-					fileReader.close();
-					throw new IOException("Invalid length of line!");
-				}
-				for (int i = 0; i < line.length(); i++)
-					if (i%2==0)
-						continue;
-					else if (i==7|i==15)
-						continue;
-					else if (!isValid(line.charAt(i))) {
-						reader.close();
-						fileReader.close();
-						throw new IOException("Invalid character detected!");
-					}
-					else
-						result+=line.charAt(i);
-				currentLine++;
-			}
-
-			reader.close();
-			fileReader.close();
-			return result;
-		} catch (FileNotFoundException e) {
-			throw new IOException("The file could not be found!");
+			if (reader.getLineLength() < 22)
+				throw reader.error("Invalid length of line");
+			for (int i = 1; i < 22; i += 2)
+				if (i != 7 && i != 15)
+					cells[count++] = cellAt(reader, i);
 		}
+		return count;
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see io.SudokuFormat#save(java.lang.String, sudoku.Sudoku)
+	 * @see io.SudokuFormat#write(java.io.BufferedWriter, sudoku.Sudoku)
 	 */
 	@Override
-	public void save(String filename, Sudoku sudoku) throws IOException {
-		FileWriter fileWriter = new FileWriter(new File(filename));
-		BufferedWriter writer =new BufferedWriter(fileWriter);
-		
+	public void write(BufferedWriter writer, Sudoku sudoku) throws IOException {
+		checkRegular(sudoku);
 		for(int i=0;i<9;i++) {
 			for(int k=0;k<9;k++) {
 				int val=sudoku.getValueAt(i, k);
@@ -90,9 +61,6 @@ public class SuDokuSolver extends SudokuFormat {
 				writer.newLine();
 			}
 		}
-		
-		writer.close();
-		fileWriter.close();
 	}
 
 	/*
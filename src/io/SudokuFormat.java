@@ -1,6 +1,11 @@
 package io;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 
 import sudoku.Sudoku;
 
@@ -43,13 +48,125 @@ public abstract class SudokuFormat {
 	}
 
 	/**
-	 * Loads the sudoku from the file.
+	 * Loads the sudoku from the file. When the file holds several sudokus,
+	 * the first is returned.
 	 * 
 	 * @param filename
 	 *            Loads the sudoku from the filename.
 	 * @return the string containing the sudoku.
 	 */
-	public abstract String load(String filename) throws IOException;
+	public String load(String filename) throws IOException {
+		SudokuReader reader = open(filename);
+		try {
+			return first(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reads a sudoku in this format from the given reader, such as a file or
+	 * the body of a request. When the reader holds several sudokus, the first
+	 * is returned.
+	 * 
+	 * @param reader
+	 *            The reader to read the sudoku from.
+	 * @return the string containing the sudoku.
+	 */
+	public String read(BufferedReader reader) throws IOException {
+		return first(new SudokuReader(this, reader));
+	}
+
+	/**
+	 * Returns the first sudoku of the given reader.
+	 * 
+	 * @param reader
+	 *            The reader of the sudokus.
+	 * @return the string containing the sudoku.
+	 * @throws IOException
+	 *             When the reader holds no sudoku.
+	 */
+	private static String first(SudokuReader reader) throws IOException {
+		String sudoku = reader.next();
+		if (sudoku == null)
+			throw new IOException("The sudoku is empty!");
+		return sudoku;
+	}
+
+	/**
+	 * Opens a reader of all sudokus in this format in the given file.
+	 * 
+	 * @param filename
+	 *            The name of the file.
+	 * @return the reader of the sudokus, which has to be closed.
+	 * @throws IOException
+	 *             When the file cannot be found.
+	 */
+	public SudokuReader open(String filename) throws IOException {
+		return new SudokuReader(this, filename);
+	}
+
+	/**
+	 * Opens a reader of all sudokus in this format in the given stream.
+	 * 
+	 * @param in
+	 *            The stream of UTF-8 text.
+	 * @return the reader of the sudokus, which has to be closed.
+	 */
+	public SudokuReader open(InputStream in) {
+		return new SudokuReader(this, in);
+	}
+
+	/**
+	 * Reads the next sudoku in this format from the lines of the given reader
+	 * into the given buffer. Empty lines before the sudoku are skipped.
+	 * 
+	 * @param reader
+	 *            The reader of the lines.
+	 * @param cells
+	 *            The buffer for the cells, with a character per cell.
+	 * @return the number of cells, or -1 when there are no more sudokus.
+	 * @throws IOException
+	 *             When the input cannot be read or does not hold a valid
+	 *             sudoku in this format.
+	 */
+	protected abstract int read(SudokuReader reader, char[] cells)
+			throws IOException;
+
+	/**
+	 * Returns the cell at the given position of the current line of the
+	 * reader, where a dot is an empty cell.
+	 * 
+	 * @param reader
+	 *            The reader of the lines.
+	 * @param index
+	 *            The position in the line.
+	 * @return the character of the cell, 0 when it is empty.
+	 * @throws IOException
+	 *             When the character is not valid.
+	 */
+	protected char cellAt(SudokuReader reader, int index) throws IOException {
+		char c = reader.charAt(index);
+		if (c == '.')
+			return '0';
+		if (!isValid(c))
+			throw reader.error("Invalid character '" + c + "' at position "
+					+ index);
+		return c;
+	}
+
+	/**
+	 * Reads the next line of a sudoku, which has to follow directly.
+	 * 
+	 * @param reader
+	 *            The reader of the lines.
+	 * @throws IOException
+	 *             When the input ends before the sudoku is complete.
+	 */
+	protected void nextLine(SudokuReader reader) throws IOException {
+		if (!reader.readLine())
+			throw reader.error("The sudoku is incomplete");
+	}
 
 	/**
 	 * Saves the sudoku in this format with the given filename.
@@ -59,5 +176,40 @@ public abstract class SudokuFormat {
 	 * @param sudoku
 	 *            The sudoku to save.
 	 */
-	public abstract void save(String filename, Sudoku sudoku) throws IOException;
+	public void save(String filename, Sudoku sudoku) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new FileWriter(new File(
+				filename)));
+		try {
+			write(writer, sudoku);
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes the sudoku in this format to the given writer. No line break is
+	 * written after the last line, so that several sudokus can be streamed to
+	 * the same writer separated by line breaks.
+	 * 
+	 * @param writer
+	 *            The writer to write the sudoku to.
+	 * @param sudoku
+	 *            The sudoku to write.
+	 */
+	public abstract void write(BufferedWriter writer, Sudoku sudoku)
+			throws IOException;
+
+	/**
+	 * Checks whether the given sudoku is a regular 9x9 sudoku, for the formats
+	 * which cannot store other sizes.
+	 * 
+	 * @param sudoku
+	 *            The sudoku to save.
+	 * @throws IllegalArgumentException
+	 *             When the sudoku is not a regular sudoku.
+	 */
+	protected void checkRegular(Sudoku sudoku) throws IllegalArgumentException {
+		if (sudoku.getSize() != 9)
+			throw new IllegalArgumentException("This format only supports 9x9 sudokus!");
+	}
 }
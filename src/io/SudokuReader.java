@@ -0,0 +1,285 @@
+package io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import sudoku.Layout;
+
+/**
+ * Reads the sudokus of a file or stream in a given format one after another,
+ * so that collections of many sudokus do not have to be split into a file
+ * per sudoku.
+ *
+ * The input is read in blocks into a buffer and the lines are copied into a
+ * reusable line buffer, from which the format picks the cells of a sudoku.
+ * Only the string of a sudoku is allocated, and not even that when the cells
+ * are read into a buffer of the caller.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class SudokuReader implements Closeable {
+	// The number of characters which are read from the input at once.
+	private static final int BUFFER_SIZE = 8192;
+	// The format of the sudokus.
+	private final SudokuFormat format;
+	// The input to read from.
+	private final Reader reader;
+	// The characters read from the input.
+	private final char[] buffer = new char[BUFFER_SIZE];
+	// The position of the next character in the buffer.
+	private int offset = 0;
+	// The number of characters in the buffer.
+	private int limit = 0;
+	// The characters of the current line, without the line break.
+	private char[] line = new char[128];
+	// The number of characters of the current line.
+	private int length = 0;
+	// The number of the current line, starting at 1.
+	private int lineNumber = 0;
+	// The cells of the last sudoku returned by next().
+	private final char[] cells = new char[Layout.MAX_BOX_SIZE
+			* Layout.MAX_BOX_SIZE * Layout.MAX_BOX_SIZE * Layout.MAX_BOX_SIZE];
+
+	/**
+	 * Creates a new reader of the sudokus in the given format from the given
+	 * reader.
+	 *
+	 * @param format
+	 *            The format of the sudokus.
+	 * @param reader
+	 *            The reader to read the sudokus from, which is closed by
+	 *            {@link #close()}.
+	 */
+	public SudokuReader(SudokuFormat format, Reader reader) {
+		this.format = format;
+		this.reader = reader;
+	}
+
+	/**
+	 * Creates a new reader of the sudokus in the given format from the given
+	 * stream of UTF-8 text.
+	 *
+	 * @param format
+	 *            The format of the sudokus.
+	 * @param in
+	 *            The stream to read the sudokus from, which is closed by
+	 *            {@link #close()}.
+	 */
+	public SudokuReader(SudokuFormat format, InputStream in) {
+		this(format, new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Creates a new reader of the sudokus in the given format from the file
+	 * with the given name.
+	 *
+	 * @param format
+	 *            The format of the sudokus.
+	 * @param filename
+	 *            The name of the file.
+	 * @throws IOException
+	 *             When the file cannot be found.
+	 */
+	public SudokuReader(SudokuFormat format, String filename)
+			throws IOException {
+		this(format, open(filename));
+	}
+
+	/**
+	 * Opens the file with the given name.
+	 *
+	 * @param filename
+	 *            The name of the file.
+	 * @return the stream of the file.
+	 * @throws IOException
+	 *             When the file cannot be found.
+	 */
+	private static InputStream open(String filename) throws IOException {
+		try {
+			return new FileInputStream(new File(filename));
+		} catch (FileNotFoundException e) {
+			throw new IOException("The file could not be found!");
+		}
+	}
+
+	/**
+	 * Reads the next sudoku.
+	 *
+	 * @return the sudoku as a string with a character per cell, or null when
+	 *         the input holds no more sudokus.
+	 * @throws IOException
+	 *             When the input cannot be read or does not hold a valid
+	 *             sudoku in the format.
+	 */
+	public String next() throws IOException {
+		int count = next(cells);
+		return count < 0 ? null : new String(cells, 0, count);
+	}
+
+	/**
+	 * Reads the next sudoku into the given buffer, which is large enough for
+	 * every size when it holds 625 characters.
+	 *
+	 * @param cells
+	 *            The buffer for the cells of the sudoku.
+	 * @return the number of cells of the sudoku, or -1 when the input holds no
+	 *         more sudokus.
+	 * @throws IOException
+	 *             When the input cannot be read or does not hold a valid
+	 *             sudoku in the format.
+	 */
+	public int next(char[] cells) throws IOException {
+		return format.read(this, cells);
+	}
+
+	/**
+	 * Returns the format of the sudokus.
+	 *
+	 * @return the format.
+	 */
+	public SudokuFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * Reads the next line into the line buffer.
+	 *
+	 * @return whether there was a next line.
+	 * @throws IOException
+	 *             When the input cannot be read.
+	 */
+	public boolean readLine() throws IOException {
+		length = 0;
+		boolean read = false;
+		while (true) {
+			if (offset == limit) {
+				limit = reader.read(buffer, 0, buffer.length);
+				offset = 0;
+				if (limit <= 0) {
+					limit = 0;
+					break;
+				}
+			}
+			read = true;
+			char c = buffer[offset++];
+			if (c == '\n')
+				break;
+			if (length == line.length)
+				line = Arrays.copyOf(line, length * 2);
+			line[length++] = c;
+		}
+		if (!read)
+			return false;
+		lineNumber++;
+		// Accept Windows line breaks.
+		if (length > 0 && line[length - 1] == '\r')
+			length--;
+		return true;
+	}
+
+	/**
+	 * Reads the next line which does not only hold white space into the line
+	 * buffer. Sudokus are separated by such lines in most formats.
+	 *
+	 * @return whether there was such a line.
+	 * @throws IOException
+	 *             When the input cannot be read.
+	 */
+	public boolean readNonEmptyLine() throws IOException {
+		while (readLine())
+			for (int i = 0; i < length; i++)
+				if (!Character.isWhitespace(line[i]))
+					return true;
+		return false;
+	}
+
+	/**
+	 * Removes the white space at the start and the end of the current line.
+	 */
+	public void trimLine() {
+		int start = 0;
+		while (start < length && Character.isWhitespace(line[start]))
+			start++;
+		while (length > start && Character.isWhitespace(line[length - 1]))
+			length--;
+		if (start > 0) {
+			System.arraycopy(line, start, line, 0, length - start);
+			length -= start;
+		}
+	}
+
+	/**
+	 * Returns the number of characters of the current line.
+	 *
+	 * @return the length of the line.
+	 */
+	public int getLineLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the character at the given position of the current line.
+	 *
+	 * @param index
+	 *            The position in the line.
+	 * @return the character.
+	 */
+	public char charAt(int index) {
+		return line[index];
+	}
+
+	/**
+	 * Returns whether the current line equals the given text.
+	 *
+	 * @param text
+	 *            The text to compare with.
+	 * @return whether the line equals the text.
+	 */
+	public boolean isLine(String text) {
+		if (text.length() != length)
+			return false;
+		for (int i = 0; i < length; i++)
+			if (line[i] != text.charAt(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Returns the number of the current line.
+	 *
+	 * @return the number of the line, starting at 1.
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Creates the exception for an error in the current line.
+	 *
+	 * @param message
+	 *            The description of the error, without the line.
+	 * @return the exception.
+	 */
+	public IOException error(String message) {
+		return new IOException(message + " in line " + lineNumber + "!");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
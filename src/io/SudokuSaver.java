@@ -29,6 +29,7 @@ public class SudokuSaver {
 		formats.add(new SadMan());
 		formats.add(new SuDokuSolver());
 		formats.add(new WebFriendly());
+		formats.add(new GridSudoku());
 	}
 
 	/**
@@ -60,6 +61,25 @@ public class SudokuSaver {
 
 	}
 
+	/**
+	 * Returns the format in which a file with the given filename is saved.
+	 * 
+	 * @param filename
+	 *            The name of the file.
+	 * @return the format for the extension of the file.
+	 * @throws IllegalArgumentException
+	 *             When no format supports the extension.
+	 */
+	public SudokuFormat getFormat(String filename)
+			throws IllegalArgumentException {
+		int pos = filename.lastIndexOf('.');
+		String extension = pos < 0 ? "" : filename.substring(pos);
+		for (SudokuFormat format : formats)
+			if (format.supports(extension))
+				return format;
+		throw new IllegalArgumentException("The given file cannot be written!");
+	}
+
 	/**
 	 * Loads a sudoku from the given filename.
 	 * 
@@ -1,13 +1,9 @@
 package io;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 
+import sudoku.Layout;
 import sudoku.Sudoku;
 
 /**
@@ -20,44 +16,36 @@ public class WebFriendly extends SudokuFormat {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see io.SudokuFormat#load(java.lang.String)
+	 * @see io.SudokuFormat#read(io.SudokuReader, char[])
 	 */
 	@Override
-	public String load(String filename) throws IOException {
-		try {
-			FileReader fileReader = new FileReader(new File(filename));
-			BufferedReader reader = new BufferedReader(fileReader);
-
-			String result = reader.readLine().replace(".", "0");
-			
-			reader.close();
-			fileReader.close();
-			return result;
-		} catch (FileNotFoundException e) {
-			throw new IOException("The file could not be found!");
+	protected int read(SudokuReader reader, char[] cells) throws IOException {
+		if (!reader.readNonEmptyLine())
+			return -1;
+		reader.trimLine();
+		int length = reader.getLineLength();
+		if (length > cells.length)
+			throw reader.error("Invalid length of line");
+		for (int i = 0; i < length; i++) {
+			char c = reader.charAt(i);
+			cells[i] = c == '.' ? '0' : c;
 		}
+		return length;
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see io.SudokuFormat#save(java.lang.String, sudoku.Sudoku)
+	 * @see io.SudokuFormat#write(java.io.BufferedWriter, sudoku.Sudoku)
 	 */
 	@Override
-	public void save(String filename, Sudoku sudoku) throws IOException {
-		System.out.println("Writing with webfriendly");
-		FileWriter fileWriter = new FileWriter(new File(filename));
-		BufferedWriter writer =new BufferedWriter(fileWriter);
-		
-		for(int i=0;i<9;i++) {
-			for(int k=0;k<9;k++) {
+	public void write(BufferedWriter writer, Sudoku sudoku) throws IOException {
+		for(int i=0;i<sudoku.getSize();i++) {
+			for(int k=0;k<sudoku.getSize();k++) {
 				int val=sudoku.getValueAt(i, k);
-				writer.write(""+(val==0?".":val));
+				writer.write(val==0?'.':Layout.toChar(val));
 			}
 		}
-		
-		writer.close();
-		fileWriter.close();
 	}
 
 	/*
@@ -0,0 +1,117 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latencies of requests in a histogram from which percentiles can
+ * be read while requests are still being recorded.
+ *
+ * The latencies are counted in buckets of microseconds, 16 for every power of
+ * two, so a percentile is accurate to within about 6 percent. Recording only
+ * increments counters, so it does not block concurrent requests.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+class LatencyStats {
+	// The number of buckets for every power of two.
+	private static final int SUB_BUCKETS = 16;
+	// The number of buckets, enough for latencies up to hours.
+	private static final int BUCKETS = 40 * SUB_BUCKETS;
+	// The number of latencies in each bucket.
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	// The number of recorded latencies.
+	private final LongAdder total = new LongAdder();
+	// The highest recorded latency in microseconds.
+	private volatile long max = 0;
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param nanos
+	 *            The latency in nanoseconds.
+	 */
+	void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		counts.incrementAndGet(bucket(micros));
+		total.increment();
+		if (micros > max)
+			synchronized (this) {
+				if (micros > max)
+					max = micros;
+			}
+	}
+
+	/**
+	 * Returns the number of recorded latencies.
+	 *
+	 * @return the number of latencies.
+	 */
+	long getCount() {
+		return total.sum();
+	}
+
+	/**
+	 * Returns the highest recorded latency.
+	 *
+	 * @return the latency in microseconds.
+	 */
+	long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the latency below which the given fraction of the recorded
+	 * latencies lie.
+	 *
+	 * @param fraction
+	 *            The fraction between 0 and 1, 0.99 for the 99th percentile.
+	 * @return the latency in microseconds, or 0 when nothing was recorded.
+	 */
+	long getPercentile(double fraction) {
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++)
+			count += snapshot[i] = counts.get(i);
+		if (count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		for (int i = 0; i < BUCKETS; i++) {
+			rank -= snapshot[i];
+			if (rank <= 0)
+				return Math.min(upperBound(i), max);
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the bucket of the given latency.
+	 *
+	 * @param micros
+	 *            The latency in microseconds.
+	 * @return the index of the bucket.
+	 */
+	private static int bucket(long micros) {
+		if (micros < SUB_BUCKETS)
+			return (int) micros;
+		int shift = 63 - Long.numberOfLeadingZeros(micros) - 4;
+		int index = (shift + 1) * SUB_BUCKETS
+				+ (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+		return Math.min(index, BUCKETS - 1);
+	}
+
+	/**
+	 * Returns the highest latency counted in the given bucket.
+	 *
+	 * @param index
+	 *            The index of the bucket.
+	 * @return the latency in microseconds.
+	 */
+	private static long upperBound(int index) {
+		if (index < SUB_BUCKETS)
+			return index;
+		int shift = index / SUB_BUCKETS - 1;
+		return ((long) (SUB_BUCKETS + index % SUB_BUCKETS + 1) << shift) - 1;
+	}
+}
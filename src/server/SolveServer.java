@@ -0,0 +1,380 @@
+package server;
+
+import io.LoadSudoku;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import sudoku.AsyncSolver;
+import sudoku.Layout;
+import sudoku.Solution;
+import sudoku.Sudoku;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A small HTTP service which solves sudokus, built on the HTTP server of the
+ * JDK.
+ *
+ * "/solve" accepts a sudoku in the body of a POST request, or in the "sudoku"
+ * parameter of a GET request, as a string with a character per cell where 0
+ * or a dot is an empty cell. With the parameter "format", for example
+ * "format=ss", the body is read in the sudoku format of that extension
+ * instead. The response is the solution as a string with a character per
+ * cell, status 422 when the sudoku has no solution, status 503 when it could
+ * not be solved before the deadline or status 400 when it is not a valid
+ * sudoku. The body is never read beyond the size of the largest sudoku.
+ *
+ * "/stats" returns the number of requests by their result and the
+ * percentiles of their latencies in microseconds as JSON.
+ *
+ * Every request runs on its own virtual thread when the JDK supports them,
+ * and otherwise on a pool of platform threads. A request solves its own copy
+ * of the sudoku on its own thread, with a deadline after which the search
+ * gives up, so an adversarial sudoku cannot tie up the thread.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class SolveServer {
+	// The number of connections which may wait to be accepted.
+	private static final int BACKLOG = 4096;
+	// The longest sudoku string which is accepted.
+	private static final int MAX_LENGTH = 4096;
+	// The longest body which is accepted with a format.
+	private static final int MAX_FORMAT_LENGTH = 65536;
+	// The number of milliseconds after which a solve gives up.
+	private static final long TIMEOUT = 10000;
+	// The solver which runs every search on the thread of its request.
+	private static final AsyncSolver solver = new AsyncSolver(new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	});
+	// The HTTP server.
+	private final HttpServer server;
+	// The executor which runs the requests.
+	private final ExecutorService executor;
+	// Whether the requests run on virtual threads.
+	private final boolean virtual;
+	// The latencies of the solve requests.
+	private final LatencyStats latencies = new LatencyStats();
+	// The number of solved sudokus.
+	private final LongAdder solved = new LongAdder();
+	// The number of sudokus without a solution.
+	private final LongAdder unsolvable = new LongAdder();
+	// The number of sudokus which were not solved before the deadline.
+	private final LongAdder timedOut = new LongAdder();
+	// The number of requests without a valid sudoku.
+	private final LongAdder invalid = new LongAdder();
+
+	/**
+	 * Creates a new server on the given port. The server does not accept
+	 * requests until it is started.
+	 *
+	 * @param port
+	 *            The port to listen on, 0 for any free port.
+	 * @throws IOException
+	 *             When the port cannot be bound.
+	 */
+	public SolveServer(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+		ExecutorService virtualExecutor = createVirtualExecutor();
+		virtual = virtualExecutor != null;
+		executor = virtual ? virtualExecutor : Executors
+				.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+		server.setExecutor(executor);
+		server.createContext("/solve", new SolveHandler());
+		server.createContext("/stats", new StatsHandler());
+	}
+
+	/**
+	 * Creates an executor which starts a virtual thread for every task.
+	 *
+	 * @return the executor, or null when the JDK has no virtual threads.
+	 */
+	private static ExecutorService createVirtualExecutor() {
+		try {
+			Method method = Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops accepting requests and stops the server once the running
+	 * requests are finished, or after the given delay.
+	 *
+	 * @param delay
+	 *            The maximum number of seconds to wait.
+	 */
+	public void stop(int delay) {
+		server.stop(delay);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Returns the port the server listens on.
+	 *
+	 * @return the port.
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Returns whether the requests run on virtual threads.
+	 *
+	 * @return whether virtual threads are used.
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * Returns the statistics of the server as JSON.
+	 *
+	 * @return the statistics.
+	 */
+	public String getStats() {
+		return "{\"requests\":" + latencies.getCount() + ",\"solved\":"
+				+ solved.sum() + ",\"unsolvable\":" + unsolvable.sum()
+				+ ",\"timed_out\":" + timedOut.sum() + ",\"invalid\":"
+				+ invalid.sum() + ",\"p50_us\":"
+				+ latencies.getPercentile(0.5) + ",\"p90_us\":"
+				+ latencies.getPercentile(0.9) + ",\"p99_us\":"
+				+ latencies.getPercentile(0.99) + ",\"p999_us\":"
+				+ latencies.getPercentile(0.999) + ",\"max_us\":"
+				+ latencies.getMax() + "}";
+	}
+
+	/**
+	 * Reads the sudoku of the given request.
+	 *
+	 * @param exchange
+	 *            The request.
+	 * @return the sudoku as a string with a character per cell.
+	 * @throws IOException
+	 *             When the request does not contain a sudoku.
+	 * @throws IllegalArgumentException
+	 *             When the format is unknown.
+	 */
+	private static String readSudoku(HttpExchange exchange) throws IOException,
+			IllegalArgumentException {
+		String format = getParameter(exchange, "format");
+		String sudokustring = getParameter(exchange, "sudoku");
+		if (sudokustring == null) {
+			Reader reader = new InputStreamReader(exchange.getRequestBody(),
+					StandardCharsets.UTF_8);
+			if (format != null)
+				sudokustring = LoadSudoku.getInstance()
+						.getFormat(format.startsWith(".") ? format : "." + format)
+						.read(new BufferedReader(new StringReader(readBody(
+								reader, MAX_FORMAT_LENGTH))));
+			else
+				sudokustring = readBody(reader, MAX_LENGTH);
+		}
+		sudokustring = sudokustring.trim().replace('.', '0');
+		if (sudokustring.isEmpty()
+				|| Layout.forString(sudokustring).getCells() != sudokustring
+						.length())
+			throw new IOException("Invalid length of the sudoku!");
+		return sudokustring;
+	}
+
+	/**
+	 * Reads the body of a request, but not more than the given number of
+	 * characters.
+	 *
+	 * @param reader
+	 *            The reader of the body.
+	 * @param limit
+	 *            The longest body which is accepted.
+	 * @return the body.
+	 * @throws IOException
+	 *             When the body cannot be read or is longer than the limit.
+	 */
+	private static String readBody(Reader reader, int limit) throws IOException {
+		char[] buffer = new char[limit + 1];
+		int length = 0, read;
+		while (length < buffer.length
+				&& (read = reader.read(buffer, length, buffer.length - length)) > 0)
+			length += read;
+		if (length > limit)
+			throw new IOException("The sudoku is too long!");
+		return new String(buffer, 0, length);
+	}
+
+	/**
+	 * Solves the given sudoku on the current thread, giving up at the
+	 * deadline.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell, where 0 is
+	 *            an empty cell.
+	 * @return the outcome of the search.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 */
+	private static Solution solve(String sudokustring)
+			throws IllegalArgumentException {
+		CompletableFuture<Solution> future;
+		try {
+			Sudoku sudoku = new Sudoku(sudokustring);
+			sudoku.setPropagation(true);
+			future = solver.solve(sudoku, TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (IllegalStateException e) {
+			// The clues contradict each other, which the solver reports as
+			// unsolvable.
+			future = solver.solve(sudokustring, TIMEOUT, TimeUnit.MILLISECONDS);
+		}
+		// The search ran on this thread, so the future is already complete.
+		return future.join();
+	}
+
+	/**
+	 * Returns the value of the given parameter of the query of the request.
+	 *
+	 * @param exchange
+	 *            The request.
+	 * @param name
+	 *            The name of the parameter.
+	 * @return the decoded value, or null when the parameter is missing.
+	 */
+	private static String getParameter(HttpExchange exchange, String name) {
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query == null)
+			return null;
+		for (String parameter : query.split("&")) {
+			int pos = parameter.indexOf('=');
+			if (pos > 0 && parameter.substring(0, pos).equals(name))
+				return URLDecoder.decode(parameter.substring(pos + 1),
+						StandardCharsets.UTF_8);
+		}
+		return null;
+	}
+
+	/**
+	 * Sends the given text as the response to the request.
+	 *
+	 * @param exchange
+	 *            The request.
+	 * @param status
+	 *            The status code of the response.
+	 * @param type
+	 *            The content type of the response.
+	 * @param text
+	 *            The body of the response.
+	 * @throws IOException
+	 *             When the response cannot be sent.
+	 */
+	private static void respond(HttpExchange exchange, int status, String type,
+			String text) throws IOException {
+		byte[] body = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", type);
+		exchange.sendResponseHeaders(status, body.length);
+		OutputStream out = exchange.getResponseBody();
+		try {
+			out.write(body);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Solves the sudoku of a request.
+	 */
+	private class SolveHandler implements HttpHandler {
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see
+		 * com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.
+		 * HttpExchange)
+		 */
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			long startTime = System.nanoTime();
+			try {
+				String method = exchange.getRequestMethod();
+				if (!method.equals("POST") && !method.equals("GET")) {
+					respond(exchange, 405, "text/plain", "Use GET or POST!\n");
+					return;
+				}
+				Solution solution;
+				try {
+					solution = solve(readSudoku(exchange));
+				} catch (IOException e) {
+					invalid.increment();
+					respond(exchange, 400, "text/plain", e.getMessage() + "\n");
+					return;
+				} catch (IllegalArgumentException e) {
+					invalid.increment();
+					respond(exchange, 400, "text/plain", e.getMessage() + "\n");
+					return;
+				}
+				if (solution.isSolved()) {
+					solved.increment();
+					respond(exchange, 200, "text/plain",
+							solution.getSolution() + "\n");
+				} else if (solution.getStatus() == Solution.Status.UNSOLVABLE) {
+					unsolvable.increment();
+					respond(exchange, 422, "text/plain", "no solution\n");
+				} else {
+					timedOut.increment();
+					respond(exchange, 503, "text/plain", "timed out\n");
+				}
+			} finally {
+				exchange.close();
+				latencies.record(System.nanoTime() - startTime);
+			}
+		}
+	}
+
+	/**
+	 * Returns the statistics of the server.
+	 */
+	private class StatsHandler implements HttpHandler {
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see
+		 * com.sun.net.httpserver.HttpHandler#handle(com.sun.net.httpserver.
+		 * HttpExchange)
+		 */
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				respond(exchange, 200, "application/json", getStats() + "\n");
+			} finally {
+				exchange.close();
+			}
+		}
+	}
+}
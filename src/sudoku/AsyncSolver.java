@@ -0,0 +1,250 @@
+package sudoku;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Solves sudokus in the background and reports the outcome through a
+ * {@link CompletableFuture}.
+ *
+ * Every solve searches its own copy of the sudoku with the search of
+ * {@link Sudoku#findSolution(AtomicBoolean)}, which checks a stop flag at
+ * every node. A deadline, {@link #stop(Future)} or a call to cancel only
+ * set that flag, so a search over an adversarial sudoku gives up its thread
+ * within one node. After a deadline or a stop the future completes with the
+ * status and the statistics so far, while a cancelled future is completed at
+ * once with a CancellationException like any other future.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class AsyncSolver {
+	// The thread which stops the searches at their deadline.
+	private static final ScheduledThreadPoolExecutor timer = createTimer();
+	// The executor which runs the searches.
+	private final Executor executor;
+
+	/**
+	 * Creates a new solver which runs the searches in the common fork/join
+	 * pool.
+	 */
+	public AsyncSolver() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new solver which runs the searches with the given executor.
+	 *
+	 * @param executor
+	 *            The executor which runs the searches.
+	 */
+	public AsyncSolver(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Creates the daemon thread which stops the searches at their deadline.
+	 *
+	 * @return the timer.
+	 */
+	private static ScheduledThreadPoolExecutor createTimer() {
+		ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1,
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "sudoku-deadlines");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		result.setRemoveOnCancelPolicy(true);
+		return result;
+	}
+
+	/**
+	 * Starts solving the given sudoku.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell, where 0 is
+	 *            an empty cell.
+	 * @param timeout
+	 *            The time after which the search gives up, 0 for none.
+	 * @param unit
+	 *            The unit of the timeout.
+	 * @return the future outcome of the search.
+	 * @throws NullPointerException
+	 *             When the sudokustring is null.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 */
+	public CompletableFuture<Solution> solve(String sudokustring, long timeout,
+			TimeUnit unit) throws NullPointerException,
+			IllegalArgumentException {
+		Sudoku sudoku;
+		try {
+			sudoku = new Sudoku(sudokustring);
+		} catch (IllegalStateException e) {
+			return CompletableFuture.completedFuture(new Solution(
+					Solution.Status.UNSOLVABLE, null, new SolverStatistics(0,
+							0, 0, 0, 0, 0)));
+		}
+		return start(sudoku, timeout, unit);
+	}
+
+	/**
+	 * Starts solving the current state of the given sudoku, which is left
+	 * unchanged.
+	 *
+	 * @param sudoku
+	 *            The sudoku to solve.
+	 * @param timeout
+	 *            The time after which the search gives up, 0 for none.
+	 * @param unit
+	 *            The unit of the timeout.
+	 * @return the future outcome of the search.
+	 */
+	public CompletableFuture<Solution> solve(Sudoku sudoku, long timeout,
+			TimeUnit unit) {
+		return start(new Sudoku(sudoku), timeout, unit);
+	}
+
+	/**
+	 * Stops the given search, which then completes with the status CANCELLED
+	 * and the statistics so far. Unlike cancelling the future, this keeps the
+	 * statistics of the search.
+	 *
+	 * @param future
+	 *            The future returned by one of the solve methods.
+	 * @return whether the search was still running, false when it had already
+	 *         finished or the future does not belong to a search.
+	 */
+	public boolean stop(Future<Solution> future) {
+		return future instanceof Search
+				&& ((Search) future).stop(Solution.Status.CANCELLED);
+	}
+
+	/**
+	 * Starts the search of the given sudoku, which is owned by the search.
+	 */
+	private CompletableFuture<Solution> start(Sudoku sudoku, long timeout,
+			TimeUnit unit) {
+		sudoku.resetStatistics();
+		final Search search = new Search(sudoku);
+		if (timeout > 0)
+			search.deadline = timer.schedule(new Runnable() {
+				@Override
+				public void run() {
+					search.stop(Solution.Status.TIMED_OUT);
+				}
+			}, timeout, unit);
+		try {
+			executor.execute(search);
+		} catch (RejectedExecutionException e) {
+			search.finish();
+			search.completeExceptionally(e);
+		}
+		return search;
+	}
+
+	/**
+	 * The search of one sudoku, which is also its future outcome.
+	 *
+	 * A stop is only recorded while the search is running, and the status of
+	 * the stop is only reported when the search actually gave up because of
+	 * it. A search which finishes on its own just before its deadline still
+	 * reports that the sudoku is unsolvable.
+	 */
+	private static class Search extends CompletableFuture<Solution> implements
+			Runnable {
+		// The copy of the sudoku owned by this search.
+		private final Sudoku sudoku;
+		// The flag which makes the search give up.
+		private final AtomicBoolean stop = new AtomicBoolean(false);
+		// The reason the search was stopped, null while it is not stopped.
+		private final AtomicReference<Solution.Status> reason = new AtomicReference<Solution.Status>();
+		// The timer task which stops the search at its deadline.
+		private volatile ScheduledFuture<?> deadline;
+
+		/**
+		 * Creates a new search of the given sudoku.
+		 */
+		Search(Sudoku sudoku) {
+			this.sudoku = sudoku;
+		}
+
+		/**
+		 * Makes the search give up at its next node, unless it has already
+		 * finished.
+		 *
+		 * @param status
+		 *            The reason to give up.
+		 * @return whether the search was still running.
+		 */
+		boolean stop(Solution.Status status) {
+			if (isDone())
+				return false;
+			reason.compareAndSet(null, status);
+			stop.set(true);
+			return true;
+		}
+
+		/**
+		 * Stops the timer of the deadline.
+		 */
+		void finish() {
+			ScheduledFuture<?> timeout = deadline;
+			if (timeout != null)
+				timeout.cancel(false);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.concurrent.CompletableFuture#cancel(boolean)
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			// The outcome is no longer needed, so the search gives up.
+			if (cancelled) {
+				reason.compareAndSet(null, Solution.Status.CANCELLED);
+				stop.set(true);
+			}
+			return cancelled;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			try {
+				boolean found = sudoku.findSolution(stop);
+				Solution.Status status;
+				if (found)
+					status = Solution.Status.SOLVED;
+				else if (sudoku.hasGivenUp())
+					status = reason.get();
+				else
+					status = Solution.Status.UNSOLVABLE;
+				complete(new Solution(status, found ? sudoku.getSudokuString()
+						: null, sudoku.getStatistics()));
+			} catch (RuntimeException e) {
+				completeExceptionally(e);
+			} finally {
+				finish();
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package sudoku;
+
+/**
+ * The engine which solves sudokus with the backtracking search of
+ * {@link Sudoku#doStep()}, optionally propagating singles after every guess.
+ * 
+ * Every thread reuses its own sudoku for each size, so that solving does not
+ * allocate anything besides the string with the solution.
+ * 
+ * @author Niels
+ * @version 0.1
+ */
+public class BacktrackingEngine implements SolverEngine {
+	// Whether singles are propagated after every guess.
+	private final boolean propagation;
+	// The sudokus of each thread, by the size of the subgrids.
+	private final ThreadLocal<Sudoku[]> sudokus = new ThreadLocal<Sudoku[]>() {
+		@Override
+		protected Sudoku[] initialValue() {
+			return new Sudoku[Layout.MAX_BOX_SIZE + 1];
+		}
+	};
+
+	/**
+	 * Creates a new backtracking engine.
+	 * 
+	 * @param propagation
+	 *            Whether singles are propagated after every guess.
+	 */
+	public BacktrackingEngine(boolean propagation) {
+		this.propagation = propagation;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see sudoku.SolverEngine#getName()
+	 */
+	@Override
+	public String getName() {
+		return propagation ? "propagation" : "backtracking";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see sudoku.SolverEngine#solve(java.lang.String)
+	 */
+	@Override
+	public String solve(String sudokustring) throws IllegalArgumentException {
+		Sudoku sudoku = createSudoku(sudokustring);
+		if (sudoku == null)
+			return null;
+		if (sudoku.isValidSolution())
+			return sudokustring;
+		try {
+			sudoku.solveCompletely();
+		} catch (IllegalStateException e) {
+			return null;
+		}
+		return sudoku.getSudokuString();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see sudoku.SolverEngine#countSolutions(java.lang.String, int)
+	 */
+	@Override
+	public int countSolutions(String sudokustring, int limit)
+			throws IllegalArgumentException {
+		Sudoku sudoku = createSudoku(sudokustring);
+		if (sudoku == null)
+			return 0;
+		return sudoku.countSolutions(limit);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see sudoku.SolverEngine#doStep(sudoku.Sudoku)
+	 */
+	@Override
+	public boolean doStep(Sudoku sudoku) throws IllegalStateException {
+		sudoku.setPropagation(propagation);
+		return sudoku.doStep();
+	}
+
+	/**
+	 * Reads the given string into the sudoku of the current thread.
+	 * 
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell.
+	 * @return the sudoku, or null when the clues contradict each other.
+	 */
+	private Sudoku createSudoku(String sudokustring) {
+		int boxSize = Layout.forString(sudokustring).getBoxSize();
+		Sudoku[] cache = sudokus.get();
+		if (cache[boxSize] == null) {
+			cache[boxSize] = new Sudoku(boxSize);
+			cache[boxSize].setPropagation(propagation);
+		}
+		try {
+			Sudoku sudoku = cache[boxSize];
+			sudoku.read(sudokustring);
+			return sudoku;
+		} catch (IllegalStateException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package sudoku;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grades a file of sudokus, in the format of its extension or with one sudoku
+ * per line, and writes the grades as comma separated values.
+ *
+ * Every line of the output holds the sudoku, whether the techniques solved it,
+ * the hardest technique, the time in microseconds and the number of times
+ * each technique was applied. The sudokus are graded in batches by a pool of
+ * workers and written in the order of the input.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class BatchGrader extends BatchProcessor {
+	// The status of a sudoku which was solved by the techniques.
+	public static final String SOLVED = "solved";
+	// The status of a sudoku which was not solved by the techniques.
+	public static final String UNSOLVED = "unsolved";
+	// The status of a line which does not contain a sudoku.
+	public static final String INVALID = "invalid";
+	// The graders of each worker, by the size of the subgrids.
+	private final ThreadLocal<Grader[]> graders = new ThreadLocal<Grader[]>() {
+		@Override
+		protected Grader[] initialValue() {
+			return new Grader[Layout.MAX_BOX_SIZE + 1];
+		}
+	};
+	// The number of sudokus solved by the techniques in the last run.
+	private final LongAdder solved = new LongAdder();
+
+	/**
+	 * Creates a new batch grader.
+	 *
+	 * @param workers
+	 *            The number of workers which grade in parallel.
+	 * @throws IllegalArgumentException
+	 *             When the number of workers is smaller than 1.
+	 */
+	public BatchGrader(int workers) throws IllegalArgumentException {
+		super(workers, "grading");
+	}
+
+	/**
+	 * Grades every sudoku in the input file and writes the grades to the
+	 * output file, after a header line, one per line and in the same order.
+	 *
+	 * @param input
+	 *            The file with the sudokus, in the format of its extension
+	 *            or with one sudoku per line.
+	 * @param output
+	 *            The file to write the grades to.
+	 * @return the number of sudokus which were processed.
+	 * @throws IOException
+	 *             When a file cannot be read or written.
+	 */
+	public long grade(String input, String output) throws IOException {
+		StringBuilder header = new StringBuilder(
+				"puzzle,status,hardest,microseconds");
+		for (Technique technique : Technique.values())
+			header.append(',').append(technique.getName());
+		solved.reset();
+		return run(input, output, header.toString());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see sudoku.BatchProcessor#process(java.lang.String)
+	 */
+	@Override
+	protected String process(String sudokustring) {
+		Grade grade;
+		try {
+			int boxSize = Layout.forString(sudokustring).getBoxSize();
+			Grader[] cache = graders.get();
+			if (cache[boxSize] == null)
+				cache[boxSize] = new Grader(boxSize);
+			grade = cache[boxSize].grade(sudokustring);
+		} catch (IllegalArgumentException e) {
+			StringBuilder invalid = new StringBuilder(quote(sudokustring))
+					.append(',').append(INVALID).append(",,");
+			for (int j = 0; j < Technique.values().length; j++)
+				invalid.append(',');
+			return invalid.toString();
+		}
+		if (grade.isSolved())
+			solved.increment();
+		return format(sudokustring, grade);
+	}
+
+	/**
+	 * Returns the number of sudokus which were solved by the techniques in the
+	 * last run.
+	 *
+	 * @return the number of solved sudokus.
+	 */
+	public long getSolved() {
+		return solved.sum();
+	}
+
+	/**
+	 * Quotes the given field as comma separated value: the field is wrapped in
+	 * double quotes and every double quote in it is doubled, see RFC 4180.
+	 *
+	 * @param field
+	 *            The field, which may contain commas, quotes and line breaks.
+	 * @return the quoted field.
+	 */
+	private static String quote(String field) {
+		return '"' + field.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * Formats the given grade as a line of comma separated values.
+	 *
+	 * @param sudokustring
+	 *            The graded sudoku.
+	 * @param grade
+	 *            The grade of the sudoku.
+	 * @return the line.
+	 */
+	private static String format(String sudokustring, Grade grade) {
+		StringBuilder result = new StringBuilder(sudokustring);
+		Technique hardest = grade.getHardest();
+		result.append(',').append(grade.isSolved() ? SOLVED : UNSOLVED)
+				.append(',').append(hardest == null ? "" : hardest.getName())
+				.append(',').append(grade.getTime() / 1000);
+		for (Technique technique : Technique.values())
+			result.append(',').append(grade.getCount(technique));
+		return result.toString();
+	}
+}
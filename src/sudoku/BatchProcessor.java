@@ -0,0 +1,181 @@
+package sudoku;
+
+import io.LoadSudoku;
+import io.SudokuReader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Turns every sudoku of a file into one line of an output file, for the batch
+ * tools which solve or grade a file of sudokus without a graphical user
+ * interface. The file is read in the format of its extension, or with one
+ * sudoku per line in the webfriendly txt format for other extensions.
+ *
+ * The sudokus are processed in batches by a pool of workers and the lines are
+ * written in the order of the input while the rest of the file is still being
+ * processed. What is written for a sudoku is up to {@link #process(String)}.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+abstract class BatchProcessor {
+	// The number of lines which are processed together by one worker.
+	private static final int BATCH_SIZE = 256;
+	// The number of workers.
+	private final int workers;
+	// What the workers do, for the messages of the errors.
+	private final String activity;
+
+	/**
+	 * Creates a new batch processor.
+	 *
+	 * @param workers
+	 *            The number of workers which process in parallel.
+	 * @param activity
+	 *            What the workers do, for example "solving".
+	 * @throws IllegalArgumentException
+	 *             When the number of workers is smaller than 1.
+	 */
+	BatchProcessor(int workers, String activity)
+			throws IllegalArgumentException {
+		if (workers < 1)
+			throw new IllegalArgumentException(
+					"at least one worker is required!");
+		this.workers = workers;
+		this.activity = activity;
+	}
+
+	/**
+	 * Returns the line for the given sudoku. Called by the workers, so it must
+	 * be safe to call from several threads at once.
+	 *
+	 * @param sudokustring
+	 *            The trimmed sudoku, where 0 is an empty cell.
+	 * @return the line to write for the sudoku.
+	 */
+	protected abstract String process(String sudokustring);
+
+	/**
+	 * Processes every sudoku in the input file and writes a line per sudoku
+	 * to the output file, in the same order.
+	 *
+	 * @param input
+	 *            The file with the sudokus, in the format of its extension
+	 *            or with one sudoku per line.
+	 * @param output
+	 *            The file to write the lines to.
+	 * @param header
+	 *            The first line of the output, or null for none.
+	 * @return the number of sudokus which were processed.
+	 * @throws IOException
+	 *             When a file cannot be read or written.
+	 */
+	long run(String input, String output, String header) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		SudokuReader reader = LoadSudoku.getInstance().openSudokus(input);
+		BufferedWriter writer = new BufferedWriter(new FileWriter(new File(
+				output)));
+		ArrayDeque<Future<String[]>> pending = new ArrayDeque<Future<String[]>>();
+		long lines = 0;
+
+		try {
+			if (header != null) {
+				writer.write(header);
+				writer.newLine();
+			}
+
+			String[] batch = new String[BATCH_SIZE];
+			int size = 0;
+			String sudokustring;
+			while ((sudokustring = reader.next()) != null) {
+				batch[size++] = sudokustring;
+				lines++;
+				if (size == BATCH_SIZE) {
+					pending.add(executor.submit(new Batch(batch, size)));
+					batch = new String[BATCH_SIZE];
+					size = 0;
+				}
+				// Write the finished batches, keeping every worker busy.
+				while (pending.size() > workers * 2)
+					write(writer, pending.poll());
+			}
+			if (size > 0)
+				pending.add(executor.submit(new Batch(batch, size)));
+			while (!pending.isEmpty())
+				write(writer, pending.poll());
+		} finally {
+			executor.shutdownNow();
+			reader.close();
+			writer.close();
+		}
+		return lines;
+	}
+
+	/**
+	 * Writes the lines of the given batch once it is finished.
+	 *
+	 * @param writer
+	 *            The writer to write the lines to.
+	 * @param future
+	 *            The batch.
+	 * @throws IOException
+	 *             When the lines cannot be written.
+	 */
+	private void write(BufferedWriter writer, Future<String[]> future)
+			throws IOException {
+		String[] results;
+		try {
+			results = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while " + activity + "!");
+		} catch (ExecutionException e) {
+			throw new IOException("Failed while " + activity + ": "
+					+ e.getCause());
+		}
+		for (String result : results) {
+			writer.write(result);
+			writer.newLine();
+		}
+	}
+
+	/**
+	 * A batch of lines which is processed by one worker.
+	 */
+	private class Batch implements Callable<String[]> {
+		// The lines of the batch.
+		private final String[] lines;
+		// The number of lines.
+		private final int size;
+
+		/**
+		 * Creates a new batch with the first size lines.
+		 */
+		Batch(String[] lines, int size) {
+			this.lines = lines;
+			this.size = size;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public String[] call() {
+			String[] results = new String[size];
+			for (int i = 0; i < size; i++)
+				results[i] = process(lines[i].trim().replace('.', '0'));
+			return results;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package sudoku;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solves a file of sudokus without a graphical user interface. The file is
+ * read in the format of its extension, or with one sudoku per line in the
+ * webfriendly txt format for other extensions.
+ *
+ * The sudokus are solved in batches by a pool of workers and the solutions are
+ * written in the order of the input while the rest of the file is still being
+ * solved.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class BatchSolver extends BatchProcessor {
+	// The line written for a sudoku without a solution.
+	public static final String NO_SOLUTION = "no solution";
+	// The line written for a line which does not contain a sudoku.
+	public static final String INVALID = "invalid";
+	// The engine which solves the sudokus.
+	private final SolverEngine engine;
+	// The number of sudokus solved by the last run.
+	private final LongAdder solved = new LongAdder();
+	// The number of sudokus without a solution in the last run.
+	private final LongAdder unsolvable = new LongAdder();
+
+	/**
+	 * Creates a new batch solver.
+	 *
+	 * @param engine
+	 *            The engine which solves the sudokus.
+	 * @param workers
+	 *            The number of workers which solve in parallel.
+	 * @throws IllegalArgumentException
+	 *             When the number of workers is smaller than 1.
+	 */
+	public BatchSolver(SolverEngine engine, int workers)
+			throws IllegalArgumentException {
+		super(workers, "solving");
+		this.engine = engine;
+	}
+
+	/**
+	 * Solves every sudoku in the input file and writes the solutions to the
+	 * output file, one per line and in the same order.
+	 *
+	 * @param input
+	 *            The file with the sudokus, in the format of its extension
+	 *            or with one sudoku per line.
+	 * @param output
+	 *            The file to write the solutions to.
+	 * @return the number of sudokus which were processed.
+	 * @throws IOException
+	 *             When a file cannot be read or written.
+	 */
+	public long solve(String input, String output) throws IOException {
+		solved.reset();
+		unsolvable.reset();
+		return run(input, output, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see sudoku.BatchProcessor#process(java.lang.String)
+	 */
+	@Override
+	protected String process(String sudokustring) {
+		String solution;
+		try {
+			solution = engine.solve(sudokustring);
+		} catch (IllegalArgumentException e) {
+			unsolvable.increment();
+			return INVALID;
+		}
+		if (solution == null) {
+			unsolvable.increment();
+			return NO_SOLUTION;
+		}
+		solved.increment();
+		return solution;
+	}
+
+	/**
+	 * Returns the number of sudokus which were solved by the last run.
+	 *
+	 * @return the number of solved sudokus.
+	 */
+	public long getSolved() {
+		return solved.sum();
+	}
+
+	/**
+	 * Returns the number of lines without a solution or without a valid
+	 * sudoku in the last run.
+	 *
+	 * @return the number of unsolvable lines.
+	 */
+	public long getUnsolvable() {
+		return unsolvable.sum();
+	}
+}
@@ -0,0 +1,90 @@
+package sudoku;
+
+/**
+ * The canonical form of a regular sudoku together with the transformation
+ * which turns the sudoku into it, see {@link Canonicalizer}.
+ *
+ * The transformation consists of an optional transposition, a permutation of
+ * the rows and columns and a relabelling of the digits. Since it preserves the
+ * rules of the sudoku, a solution of the canonical form is mapped back to a
+ * solution of the original sudoku by {@link #toOriginal(String)}.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public final class CanonicalForm {
+	// The canonical form as a string of 81 digits.
+	private final String form;
+	// Whether the sudoku was transposed.
+	private final boolean transposed;
+	// The original row of each row of the canonical form.
+	private final int[] rows;
+	// The original column of each column of the canonical form.
+	private final int[] columns;
+	// The original digit of each digit of the canonical form.
+	private final int[] digits;
+
+	/**
+	 * Creates a new canonical form.
+	 *
+	 * @param form
+	 *            The canonical form as a string of 81 digits.
+	 * @param transposed
+	 *            Whether the sudoku was transposed.
+	 * @param rows
+	 *            The original row of each row of the canonical form.
+	 * @param columns
+	 *            The original column of each column of the canonical form.
+	 * @param digits
+	 *            The original digit of each digit of the canonical form.
+	 */
+	CanonicalForm(String form, boolean transposed, int[] rows, int[] columns,
+			int[] digits) {
+		this.form = form;
+		this.transposed = transposed;
+		this.rows = rows;
+		this.columns = columns;
+		this.digits = digits;
+	}
+
+	/**
+	 * Returns the canonical form, which is the same for every sudoku that is
+	 * a relabelled, transposed or row or column permuted copy of another.
+	 *
+	 * @return the canonical form as a string of 81 digits.
+	 */
+	public String getForm() {
+		return form;
+	}
+
+	/**
+	 * Maps a sudoku in the orientation and digits of the canonical form, such
+	 * as its solution, back to the orientation and digits of the original
+	 * sudoku.
+	 *
+	 * @param canonical
+	 *            The sudoku in canonical orientation as a string of 81
+	 *            digits.
+	 * @return the sudoku in original orientation as a string of 81 digits.
+	 */
+	public String toOriginal(String canonical) {
+		char[] result = new char[81];
+		for (int i = 0; i < 9; i++)
+			for (int k = 0; k < 9; k++) {
+				int cell = transposed ? columns[k] * 9 + rows[i] : rows[i] * 9
+						+ columns[k];
+				result[cell] = (char) ('0' + digits[canonical.charAt(i * 9 + k) - '0']);
+			}
+		return new String(result);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return form;
+	}
+}
@@ -0,0 +1,506 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Computes the canonical form of regular sudokus.
+ *
+ * Two sudokus are equivalent when one is turned into the other by relabelling
+ * the digits, permuting the bands or stacks, permuting the rows within a band
+ * or the columns within a stack, or transposing. The canonical form is the
+ * smallest string of 81 digits among all equivalent sudokus, where the digits
+ * are relabelled in the order in which they first appear.
+ *
+ * The form is built row by row: for every row only the transformations which
+ * give the smallest row so far are kept, so the search only branches on the
+ * rows which tie. The column order of a transformation is not fixed up front.
+ * The columns which cannot be told apart by the rows so far are kept together
+ * in a cell, and the stacks which cannot be told apart are kept together in a
+ * group, so every next row only has to sort the columns within their cells and
+ * the stacks within their groups. Only the order of the digits which appear
+ * for the first time, and therefore get their labels, is branched on.
+ *
+ * The transformations are kept in preallocated arrays which are reused by
+ * every call on the same thread, so a warm call only allocates its result.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class Canonicalizer {
+	// The class of a digit which has no label yet, above every label.
+	private static final int NEW = 10;
+	// The offset of the transposition in a transformation.
+	private static final int TRANSPOSED = 0;
+	// The offset of the number of chosen rows in a transformation.
+	private static final int COUNT = 1;
+	// The offset of the next unused label in a transformation.
+	private static final int NEXT_LABEL = 2;
+	// The offset of the mask of the positions which start a cell of columns.
+	private static final int CELLS = 3;
+	// The offset of the mask of the stack positions which start a group.
+	private static final int GROUPS = 4;
+	// The offset of the original rows of the chosen rows.
+	private static final int ROWS = 5;
+	// The offset of the labels of the digits, 0 when a digit has no label.
+	private static final int LABELS = 14;
+	// The offset of the original column at each position.
+	private static final int COLUMNS = 24;
+	// The number of ints of a transformation.
+	private static final int WIDTH = 33;
+	// The canonicalizer of each thread.
+	private static final ThreadLocal<Canonicalizer> canonicalizers = new ThreadLocal<Canonicalizer>() {
+		@Override
+		protected Canonicalizer initialValue() {
+			return new Canonicalizer();
+		}
+	};
+
+	// The sudoku as it is and transposed.
+	private final int[][] grids = new int[2][81];
+	// The transformations which give the smallest rows so far.
+	private int[] states = new int[64 * WIDTH];
+	// The number of transformations in states.
+	private int stateCount;
+	// The transformations which give the smallest next row.
+	private int[] next = new int[64 * WIDTH];
+	// The number of transformations in next.
+	private int nextCount;
+	// The classes of the smallest next row so far.
+	private final int[] best = new int[9];
+	// Whether there is a smallest next row so far.
+	private boolean found;
+	// The original columns of the row which is evaluated.
+	private final int[] columns = new int[9];
+	// The classes of the row which is evaluated: 0 for an empty cell, the
+	// label of a digit or NEW.
+	private final int[] values = new int[9];
+	// The original columns of the evaluated row with its stacks in order.
+	private final int[] arranged = new int[9];
+	// The classes of the evaluated row with its stacks in order.
+	private final int[] arrangedValues = new int[9];
+	// The stack positions in the order in which they are arranged.
+	private final int[] stacks = new int[3];
+	// The first position of each range whose order is branched on.
+	private final int[] segmentStart = new int[12];
+	// The number of elements of each range whose order is branched on.
+	private final int[] segmentLength = new int[12];
+	// The number of positions of an element of each range: 3 for stacks and
+	// 1 for columns.
+	private final int[] segmentWidth = new int[12];
+	// The number of ranges whose order is branched on.
+	private int segments;
+
+	/**
+	 * Creates a canonicalizer with empty arrays.
+	 */
+	private Canonicalizer() {
+	}
+
+	/**
+	 * Computes the canonical form of the given sudoku.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string of 81 digits, where 0 or a dot is an
+	 *            empty cell.
+	 * @return the canonical form and the transformation leading to it.
+	 * @throws NullPointerException
+	 *             When the sudokustring is null.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku, including a
+	 *             sudoku with a digit twice in a row or column.
+	 */
+	public static CanonicalForm canonicalize(String sudokustring)
+			throws NullPointerException, IllegalArgumentException {
+		return canonicalizers.get().compute(sudokustring);
+	}
+
+	/**
+	 * Computes the canonical form of the given sudoku with the arrays of this
+	 * canonicalizer.
+	 *
+	 * @see #canonicalize(String)
+	 */
+	private CanonicalForm compute(String sudokustring)
+			throws NullPointerException, IllegalArgumentException {
+		if (sudokustring == null)
+			throw new NullPointerException("the given sudokustring is null!");
+		if (sudokustring.length() < 81)
+			throw new IllegalArgumentException(
+					"the sudokustring must be at least 81 characters long!");
+		read(sudokustring);
+
+		// Without rows, all columns of a stack and all stacks are alike.
+		stateCount = 0;
+		for (int t = 0; t < 2; t++) {
+			int state = stateCount++ * WIDTH;
+			Arrays.fill(states, state, state + WIDTH, 0);
+			states[state + TRANSPOSED] = t;
+			states[state + NEXT_LABEL] = 1;
+			states[state + CELLS] = 1 | 1 << 3 | 1 << 6;
+			states[state + GROUPS] = 1;
+			for (int j = 0; j < 9; j++)
+				states[state + COLUMNS + j] = j;
+		}
+
+		// Every next row only keeps the transformations which tie.
+		for (int i = 0; i < 9; i++) {
+			nextCount = 0;
+			found = false;
+			for (int s = 0; s < stateCount; s++) {
+				int state = s * WIDTH;
+				int band = i == 0 ? 0 : states[state + ROWS + i - 1] / 3;
+				for (int r = 0; r < 9; r++)
+					if (!isUsed(state, r)
+							&& (i % 3 == 0 ? !isBandUsed(state, r / 3)
+									: r / 3 == band))
+						evaluate(state, r);
+			}
+			int[] swap = states;
+			states = next;
+			next = swap;
+			stateCount = nextCount;
+		}
+		return toCanonicalForm(0);
+	}
+
+	/**
+	 * Reads the sudoku and its transposition into the grids.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string of 81 digits.
+	 * @throws IllegalArgumentException
+	 *             When the string contains an invalid character or a digit
+	 *             twice in a row or column.
+	 */
+	private void read(String sudokustring) throws IllegalArgumentException {
+		for (int cell = 0; cell < 81; cell++) {
+			char c = sudokustring.charAt(cell);
+			int value = Layout.toValue(c);
+			if (value < 0 || value > 9)
+				throw new IllegalArgumentException("Invalid character '" + c
+						+ "' at position " + cell + "!");
+			grids[0][cell] = value;
+			grids[1][(cell % 9) * 9 + cell / 9] = value;
+		}
+		// The labels of a row are only ordered by position when its digits
+		// differ, which also holds for the rows of the transposition.
+		for (int[] grid : grids)
+			for (int r = 0; r < 9; r++) {
+				int used = 0;
+				for (int j = 0; j < 9; j++) {
+					int value = grid[r * 9 + j];
+					if (value == 0)
+						continue;
+					if ((used & 1 << value) != 0)
+						throw new IllegalArgumentException(
+								"the sudoku contains a digit twice in a row or column!");
+					used |= 1 << value;
+				}
+			}
+	}
+
+	/**
+	 * Arranges the given row with the smallest order of the columns which the
+	 * given transformation allows, compares it with the smallest next row so
+	 * far and adds the transformations which extend the given one with the
+	 * row when it is not larger.
+	 *
+	 * Within a cell the empty cells come first, then the digits with a label
+	 * by their label and then the digits without a label, which get the next
+	 * labels in the order of their positions. The stacks of a group are
+	 * sorted by their arranged columns. Since the new digits are labelled by
+	 * position, any order of them gives the same row, so the transformation is
+	 * extended with each of those orders.
+	 *
+	 * @param state
+	 *            The offset of the transformation in the states.
+	 * @param r
+	 *            The original row.
+	 */
+	private void evaluate(int state, int r) {
+		int[] grid = grids[states[state + TRANSPOSED]];
+		int cells = states[state + CELLS];
+		int groups = states[state + GROUPS];
+
+		// Sort the columns within their cells.
+		for (int j = 0; j < 9; j++) {
+			int column = states[state + COLUMNS + j];
+			int value = grid[r * 9 + column];
+			if (value > 0)
+				value = states[state + LABELS + value] > 0 ? states[state
+						+ LABELS + value] : NEW;
+			int k = j;
+			while ((cells & 1 << k) == 0 && values[k - 1] > value) {
+				values[k] = values[k - 1];
+				columns[k] = columns[k - 1];
+				k--;
+			}
+			values[k] = value;
+			columns[k] = column;
+		}
+
+		// Sort the stacks within their groups.
+		for (int p = 0; p < 3; p++) {
+			int k = p;
+			while ((groups & 1 << k) == 0
+					&& compareStacks(stacks[k - 1], p) > 0) {
+				stacks[k] = stacks[k - 1];
+				k--;
+			}
+			stacks[k] = p;
+		}
+		for (int p = 0; p < 3; p++) {
+			System.arraycopy(columns, stacks[p] * 3, arranged, p * 3, 3);
+			System.arraycopy(values, stacks[p] * 3, arrangedValues, p * 3, 3);
+		}
+
+		// Compare with the smallest next row so far.
+		if (found) {
+			int j = 0;
+			while (j < 9 && arrangedValues[j] == best[j])
+				j++;
+			if (j < 9 && arrangedValues[j] > best[j])
+				return;
+			if (j < 9)
+				nextCount = 0;
+		}
+		System.arraycopy(arrangedValues, 0, best, 0, 9);
+		found = true;
+
+		// The stacks of a group which tie with a new digit, and the new
+		// digits of a cell, are branched on. The stacks which tie are alike,
+		// so the cells of their new digits are at the same positions.
+		segments = 0;
+		int newCells = cells;
+		int newGroups = 1;
+		for (int p = 0; p < 3; p++) {
+			boolean tie = p > 0 && (groups & 1 << p) == 0
+					&& compareBlocks(p - 1, p) == 0;
+			boolean filled = arrangedValues[p * 3] != 0
+					|| arrangedValues[p * 3 + 1] != 0
+					|| arrangedValues[p * 3 + 2] != 0;
+			if (!tie || filled)
+				newGroups |= 1 << p;
+			if (tie && filled) {
+				if (segments > 0 && segmentWidth[segments - 1] == 3
+						&& segmentStart[segments - 1]
+								+ segmentLength[segments - 1] * 3 == p * 3)
+					segmentLength[segments - 1]++;
+				else
+					addSegment((p - 1) * 3, 2, 3);
+			}
+		}
+		for (int j = 0; j < 9; j++) {
+			int value = arrangedValues[j];
+			if ((cells & 1 << j) != 0)
+				continue;
+			if (value != arrangedValues[j - 1] || value == NEW)
+				newCells |= 1 << j;
+			if (value == NEW && arrangedValues[j - 1] == NEW) {
+				if (segments > 0 && segmentWidth[segments - 1] == 1
+						&& segmentStart[segments - 1]
+								+ segmentLength[segments - 1] == j)
+					segmentLength[segments - 1]++;
+				else
+					addSegment(j - 1, 2, 1);
+			}
+		}
+		branch(state, r, newCells, newGroups, 0, 0);
+	}
+
+	/**
+	 * Compares the columns of the given stack position with those of the
+	 * stack position p, both sorted within their cells.
+	 *
+	 * @param first
+	 *            The first stack position.
+	 * @param p
+	 *            The second stack position.
+	 * @return a negative number, 0 or a positive number when the first stack
+	 *         is smaller than, equal to or larger than the second.
+	 */
+	private int compareStacks(int first, int p) {
+		for (int j = 0; j < 3; j++)
+			if (values[first * 3 + j] != values[p * 3 + j])
+				return values[first * 3 + j] - values[p * 3 + j];
+		return 0;
+	}
+
+	/**
+	 * Compares the arranged columns of two stack positions.
+	 *
+	 * @param first
+	 *            The first stack position.
+	 * @param second
+	 *            The second stack position.
+	 * @return a negative number, 0 or a positive number when the first stack
+	 *         is smaller than, equal to or larger than the second.
+	 */
+	private int compareBlocks(int first, int second) {
+		for (int j = 0; j < 3; j++)
+			if (arrangedValues[first * 3 + j] != arrangedValues[second * 3 + j])
+				return arrangedValues[first * 3 + j]
+						- arrangedValues[second * 3 + j];
+		return 0;
+	}
+
+	/**
+	 * Adds a range of the arranged row whose order is branched on.
+	 *
+	 * @param start
+	 *            The first position of the range.
+	 * @param length
+	 *            The number of elements of the range.
+	 * @param width
+	 *            The number of positions of an element.
+	 */
+	private void addSegment(int start, int length, int width) {
+		segmentStart[segments] = start;
+		segmentLength[segments] = length;
+		segmentWidth[segments] = width;
+		segments++;
+	}
+
+	/**
+	 * Adds a transformation for every order of the elements of the ranges
+	 * from the given range on, by swapping the elements in place.
+	 *
+	 * @param state
+	 *            The offset of the extended transformation in the states.
+	 * @param r
+	 *            The original row which extends the transformation.
+	 * @param cells
+	 *            The mask of the positions which start a cell after the row.
+	 * @param groups
+	 *            The mask of the stack positions which start a group after
+	 *            the row.
+	 * @param segment
+	 *            The range whose order is chosen.
+	 * @param k
+	 *            The number of elements of the range which are chosen.
+	 */
+	private void branch(int state, int r, int cells, int groups, int segment,
+			int k) {
+		if (segment == segments) {
+			add(state, r, cells, groups);
+			return;
+		}
+		int length = segmentLength[segment];
+		if (k >= length - 1) {
+			branch(state, r, cells, groups, segment + 1, 0);
+			return;
+		}
+		for (int i = k; i < length; i++) {
+			swap(segment, k, i);
+			branch(state, r, cells, groups, segment, k + 1);
+			swap(segment, k, i);
+		}
+	}
+
+	/**
+	 * Swaps two elements of a range of the arranged row.
+	 *
+	 * @param segment
+	 *            The range.
+	 * @param a
+	 *            The first element.
+	 * @param b
+	 *            The second element.
+	 */
+	private void swap(int segment, int a, int b) {
+		if (a == b)
+			return;
+		int width = segmentWidth[segment];
+		int start = segmentStart[segment];
+		for (int j = 0; j < width; j++) {
+			int x = start + a * width + j;
+			int y = start + b * width + j;
+			int column = arranged[x];
+			arranged[x] = arranged[y];
+			arranged[y] = column;
+		}
+	}
+
+	/**
+	 * Adds the given transformation extended with the arranged row to the
+	 * next transformations, and labels the new digits of the row.
+	 *
+	 * @param state
+	 *            The offset of the extended transformation in the states.
+	 * @param r
+	 *            The original row.
+	 * @param cells
+	 *            The mask of the positions which start a cell after the row.
+	 * @param groups
+	 *            The mask of the stack positions which start a group after
+	 *            the row.
+	 */
+	private void add(int state, int r, int cells, int groups) {
+		if ((nextCount + 1) * WIDTH > next.length)
+			next = Arrays.copyOf(next, next.length * 2);
+		int copy = nextCount++ * WIDTH;
+		System.arraycopy(states, state, next, copy, WIDTH);
+		next[copy + ROWS + next[copy + COUNT]++] = r;
+		next[copy + CELLS] = cells;
+		next[copy + GROUPS] = groups;
+		int[] grid = grids[next[copy + TRANSPOSED]];
+		for (int j = 0; j < 9; j++) {
+			int column = arranged[j];
+			next[copy + COLUMNS + j] = column;
+			if (arrangedValues[j] == NEW)
+				next[copy + LABELS + grid[r * 9 + column]] = next[copy
+						+ NEXT_LABEL]++;
+		}
+	}
+
+	/**
+	 * Returns whether the given row was chosen already.
+	 */
+	private boolean isUsed(int state, int r) {
+		for (int i = 0; i < states[state + COUNT]; i++)
+			if (states[state + ROWS + i] == r)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns whether a row of the given band was chosen already.
+	 */
+	private boolean isBandUsed(int state, int band) {
+		for (int i = 0; i < states[state + COUNT]; i++)
+			if (states[state + ROWS + i] / 3 == band)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns the canonical form for the given complete transformation. The
+	 * digits which do not appear are labelled in increasing order.
+	 *
+	 * @param index
+	 *            The index of the transformation in the states.
+	 */
+	private CanonicalForm toCanonicalForm(int index) {
+		int state = index * WIDTH;
+		int[] labels = new int[10];
+		System.arraycopy(states, state + LABELS, labels, 0, 10);
+		int nextLabel = states[state + NEXT_LABEL];
+		int[] digits = new int[10];
+		for (int value = 1; value <= 9; value++) {
+			if (labels[value] == 0)
+				labels[value] = nextLabel++;
+			digits[labels[value]] = value;
+		}
+		int[] rows = Arrays.copyOfRange(states, state + ROWS, state + ROWS + 9);
+		int[] order = Arrays.copyOfRange(states, state + COLUMNS, state
+				+ COLUMNS + 9);
+		char[] form = new char[81];
+		int[] grid = grids[states[state + TRANSPOSED]];
+		for (int i = 0; i < 9; i++)
+			for (int j = 0; j < 9; j++)
+				form[i * 9 + j] = (char) ('0' + labels[grid[rows[i] * 9
+						+ order[j]]]);
+		return new CanonicalForm(new String(form),
+				states[state + TRANSPOSED] == 1, rows, order, digits);
+	}
+}
@@ -0,0 +1,326 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Solves sudokus with Knuth's Algorithm X on the dancing links
+ * representation of the exact cover matrix.
+ *
+ * For a regular sudoku the matrix has 324 columns (one per cell, per row and
+ * value, per column and value and per 3x3 subgrid and value) and 729 rows (one
+ * per cell and value). Larger sudokus have one column per cell and per unit
+ * and value as well. All links are stored in primitive arrays which are built
+ * once and reused for every puzzle of the same size.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class DancingLinks {
+	// The geometry of the sudokus.
+	private final Layout layout;
+	// The number of rows, columns and values of the sudokus.
+	private final int n;
+	// The number of cells of the sudokus.
+	private final int cells;
+	// The number of columns in the exact cover matrix.
+	private final int columns;
+	// The link to the node on the left.
+	private final int[] left;
+	// The link to the node on the right.
+	private final int[] right;
+	// The link to the node above.
+	private final int[] up;
+	// The link to the node below.
+	private final int[] down;
+	// The column header of each node.
+	private final int[] column;
+	// The matrix row of each node.
+	private final int[] row;
+	// The number of nodes in each column.
+	private final int[] size;
+	// The first node of each matrix row.
+	private final int[] first;
+	// The matrix rows chosen by the search.
+	private final int[] chosen;
+	// The matrix rows of the clues.
+	private final int[] clues;
+	// The values used in each row, column and subgrid by the clues.
+	private final int[] used;
+	// The first solution which was found.
+	private final char[] solution;
+	// The number of clues.
+	private int clueCount;
+	// The number of solutions found.
+	private int found;
+	// The number of solutions after which the search stops.
+	private int limit;
+	// The number of nodes the search may still visit, negative once it gave
+	// up.
+	private long budget;
+
+	/**
+	 * Creates the exact cover matrix for a regular sudoku.
+	 */
+	public DancingLinks() {
+		this(3);
+	}
+
+	/**
+	 * Creates the exact cover matrix for sudokus with subgrids of the given
+	 * size.
+	 * 
+	 * @param boxSize
+	 *            The number of rows and columns of a subgrid.
+	 * @throws IllegalArgumentException
+	 *             When the size is not supported.
+	 */
+	public DancingLinks(int boxSize) throws IllegalArgumentException {
+		layout = Layout.of(boxSize);
+		n = layout.getSize();
+		cells = layout.getCells();
+		columns = 4 * cells;
+		int rows = cells * n;
+		size = new int[columns + 1];
+		first = new int[rows];
+		chosen = new int[cells];
+		clues = new int[cells];
+		used = new int[3 * n];
+		solution = new char[cells];
+		int nodes = 1 + columns + rows * 4;
+		left = new int[nodes];
+		right = new int[nodes];
+		up = new int[nodes];
+		down = new int[nodes];
+		column = new int[nodes];
+		row = new int[nodes];
+
+		// Node 0 is the root, the next nodes are the column headers.
+		for (int c = 0; c <= columns; c++) {
+			left[c] = c == 0 ? columns : c - 1;
+			right[c] = c == columns ? 0 : c + 1;
+			up[c] = c;
+			down[c] = c;
+			column[c] = c;
+			row[c] = -1;
+		}
+
+		int node = columns + 1;
+		int[] links = new int[4];
+		for (int r = 0; r < rows; r++) {
+			int cell = r / n;
+			int value = r % n;
+			links[0] = 1 + cell;
+			links[1] = 1 + cells + layout.row[cell] * n + value;
+			links[2] = 1 + 2 * cells + layout.column[cell] * n + value;
+			links[3] = 1 + 3 * cells + layout.box[cell] * n + value;
+
+			first[r] = node;
+			for (int i = 0; i < 4; i++, node++) {
+				int c = links[i];
+				column[node] = c;
+				row[node] = r;
+				// Insert at the bottom of the column.
+				up[node] = up[c];
+				down[node] = c;
+				down[up[c]] = node;
+				up[c] = node;
+				size[c]++;
+				// Link into the circular row.
+				left[node] = i == 0 ? node + 3 : node - 1;
+				right[node] = i == 3 ? node - 3 : node + 1;
+			}
+		}
+	}
+
+	/**
+	 * Solves the given sudoku.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell, where 0 is
+	 *            an empty cell.
+	 * @return the solution as a string with a character per cell, or null when
+	 *         the sudoku has no solution.
+	 * @throws NullPointerException
+	 *             When the sudokustring is null.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 */
+	public String solve(String sudokustring) throws NullPointerException,
+			IllegalArgumentException {
+		if (countSolutions(sudokustring, 1) == 0)
+			return null;
+		return new String(solution);
+	}
+
+	/**
+	 * Counts the solutions of the given sudoku, stopping as soon as the given
+	 * limit is reached.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell, where 0 is
+	 *            an empty cell.
+	 * @param limit
+	 *            The number of solutions after which to stop counting.
+	 * @return the number of solutions, at most limit.
+	 * @throws NullPointerException
+	 *             When the sudokustring is null.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 */
+	public int countSolutions(String sudokustring, int limit)
+			throws NullPointerException, IllegalArgumentException {
+		return countSolutions(sudokustring, limit, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Counts the solutions of the given sudoku, stopping as soon as the given
+	 * limit is reached or the search has visited the given number of nodes.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell, where 0 is
+	 *            an empty cell.
+	 * @param limit
+	 *            The number of solutions after which to stop counting.
+	 * @param nodes
+	 *            The number of nodes after which the search gives up.
+	 * @return the number of solutions, at most limit, or -1 when the search
+	 *         gave up before it knew.
+	 * @throws NullPointerException
+	 *             When the sudokustring is null.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 */
+	public int countSolutions(String sudokustring, int limit, long nodes)
+			throws NullPointerException, IllegalArgumentException {
+		if (sudokustring == null)
+			throw new NullPointerException("the given sudokustring is null!");
+		if (Layout.forString(sudokustring) != layout)
+			throw new IllegalArgumentException("the sudokustring must have "
+					+ cells + " characters!");
+		if (!readClues(sudokustring))
+			return 0;
+
+		// Remove the rows and columns of the clues from the matrix.
+		for (int i = 0; i < clueCount; i++)
+			for (int node = first[clues[i]], k = 0; k < 4; k++, node = right[node])
+				cover(column[node]);
+
+		this.found = 0;
+		this.limit = limit;
+		this.budget = nodes;
+		if (limit > 0)
+			search(0);
+
+		// Restore the matrix for the next sudoku.
+		for (int i = clueCount - 1; i >= 0; i--)
+			for (int node = left[first[clues[i]]], k = 0; k < 4; k++, node = left[node])
+				uncover(column[node]);
+		return budget < 0 ? -1 : found;
+	}
+
+	/**
+	 * Reads the clues from the given string into the clue rows.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell.
+	 * @return false when two clues contradict each other.
+	 */
+	private boolean readClues(String sudokustring) {
+		Arrays.fill(used, 0);
+		clueCount = 0;
+		for (int cell = 0; cell < cells; cell++) {
+			char c = sudokustring.charAt(cell);
+			int value = Layout.toValue(c);
+			if (value < 0 || value > n)
+				throw new IllegalArgumentException("Invalid character '" + c
+						+ "' at position " + cell + "!");
+			solution[cell] = Layout.toChar(value);
+			if (value == 0)
+				continue;
+			int bit = 1 << (value - 1);
+			int x = layout.row[cell];
+			int y = n + layout.column[cell];
+			int box = 2 * n + layout.box[cell];
+			if (((used[x] | used[y] | used[box]) & bit) != 0)
+				return false;
+			used[x] |= bit;
+			used[y] |= bit;
+			used[box] |= bit;
+			clues[clueCount++] = cell * n + value - 1;
+		}
+		return true;
+	}
+
+	/**
+	 * Searches for exact covers of the remaining columns.
+	 *
+	 * @param depth
+	 *            The number of rows chosen so far.
+	 */
+	private void search(int depth) {
+		if (--budget < 0)
+			return;
+		if (right[0] == 0) {
+			if (found++ == 0)
+				for (int i = 0; i < depth; i++) {
+					int r = row[chosen[i]];
+					solution[r / n] = Layout.toChar(1 + r % n);
+				}
+			return;
+		}
+
+		// Choose the column with the fewest rows.
+		int c = right[0];
+		for (int j = right[c]; j != 0 && size[c] > 1; j = right[j])
+			if (size[j] < size[c])
+				c = j;
+		if (size[c] == 0)
+			return;
+
+		cover(c);
+		for (int r = down[c]; r != c && found < limit && budget >= 0; r = down[r]) {
+			chosen[depth] = r;
+			for (int j = right[r]; j != r; j = right[j])
+				cover(column[j]);
+			search(depth + 1);
+			for (int j = left[r]; j != r; j = left[j])
+				uncover(column[j]);
+		}
+		uncover(c);
+	}
+
+	/**
+	 * Removes the given column and all rows intersecting it from the matrix.
+	 *
+	 * @param c
+	 *            The column header to cover.
+	 */
+	private void cover(int c) {
+		right[left[c]] = right[c];
+		left[right[c]] = left[c];
+		for (int i = down[c]; i != c; i = down[i])
+			for (int j = right[i]; j != i; j = right[j]) {
+				down[up[j]] = down[j];
+				up[down[j]] = up[j];
+				size[column[j]]--;
+			}
+	}
+
+	/**
+	 * Puts the given column and its rows back into the matrix, in the exact
+	 * reverse order of {@link #cover(int)}.
+	 *
+	 * @param c
+	 *            The column header to uncover.
+	 */
+	private void uncover(int c) {
+		for (int i = up[c]; i != c; i = up[i])
+			for (int j = left[i]; j != i; j = left[j]) {
+				size[column[j]]++;
+				down[up[j]] = j;
+				up[down[j]] = j;
+			}
+		right[left[c]] = c;
+		left[right[c]] = c;
+	}
+}
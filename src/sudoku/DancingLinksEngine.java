@@ -0,0 +1,101 @@
+package sudoku;
+
+/**
+ * The engine which solves sudokus with {@link DancingLinks}.
+ * 
+ * Since the exact cover matrix is modified during the search, every thread
+ * uses its own matrix for each size of sudoku.
+ * 
+ * @author Niels
+ * @version 0.1
+ */
+public class DancingLinksEngine implements SolverEngine {
+	// The exact cover matrices of each thread, by the size of the subgrids.
+	private final ThreadLocal<DancingLinks[]> links = new ThreadLocal<DancingLinks[]>() {
+		@Override
+		protected DancingLinks[] initialValue() {
+			return new DancingLinks[Layout.MAX_BOX_SIZE + 1];
+		}
+	};
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see sudoku.SolverEngine#getName()
+	 */
+	@Override
+	public String getName() {
+		return "dlx";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see sudoku.SolverEngine#solve(java.lang.String)
+	 */
+	@Override
+	public String solve(String sudokustring) throws IllegalArgumentException {
+		return getLinks(sudokustring).solve(sudokustring);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see sudoku.SolverEngine#countSolutions(java.lang.String, int)
+	 */
+	@Override
+	public int countSolutions(String sudokustring, int limit)
+			throws IllegalArgumentException {
+		return getLinks(sudokustring).countSolutions(sudokustring, limit);
+	}
+
+	/**
+	 * Counts the solutions of the given sudoku like
+	 * {@link #countSolutions(String, int)}, but gives up once the search has
+	 * visited the given number of nodes.
+	 * 
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell.
+	 * @param limit
+	 *            The number of solutions after which to stop counting.
+	 * @param nodes
+	 *            The number of nodes after which the search gives up.
+	 * @return the number of solutions, at most limit, or -1 when the search
+	 *         gave up.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 */
+	int countSolutions(String sudokustring, int limit, long nodes)
+			throws IllegalArgumentException {
+		return getLinks(sudokustring).countSolutions(sudokustring, limit,
+				nodes);
+	}
+
+	/**
+	 * Returns the exact cover matrix of the current thread for the size of the
+	 * given sudoku.
+	 * 
+	 * @param sudokustring
+	 *            The sudoku to solve.
+	 * @return the matrix for the sudoku.
+	 */
+	private DancingLinks getLinks(String sudokustring) {
+		int boxSize = Layout.forString(sudokustring).getBoxSize();
+		DancingLinks[] matrices = links.get();
+		if (matrices[boxSize] == null)
+			matrices[boxSize] = new DancingLinks(boxSize);
+		return matrices[boxSize];
+	}
+
+	/**
+	 * Fills in one cell of the solution of the current state, which is only
+	 * solved on the first step, and looks for a further solution once the
+	 * sudoku is solved.
+	 * 
+	 * @see sudoku.SolverEngine#doStep(sudoku.Sudoku)
+	 */
+	@Override
+	public boolean doStep(Sudoku sudoku) throws IllegalStateException {
+		return sudoku.fillStep(this);
+	}
+}
@@ -0,0 +1,228 @@
+package sudoku;
+
+import io.SudokuFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Generates random sudokus with a unique solution.
+ *
+ * A random complete grid is built first, after which clues are removed in a
+ * random order as long as the solution stays unique, which is checked by
+ * counting up to two solutions with {@link DancingLinks}. Its choice of the
+ * most constrained column also finds hidden singles, which keeps the check
+ * fast for larger sudokus. The clues are removed together with the cells they
+ * are mapped onto by the symmetry, and no more clues are removed once the
+ * target number of clues is reached.
+ *
+ * A check may visit at most {@value #NODE_BUDGET} nodes. When it gives up,
+ * the clue is kept as if the solution were no longer unique. Without the
+ * budget, a single check of a sparse 25x25 sudoku can run for hours, while
+ * the budget only leaves a few more clues in such sudokus.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class Generator {
+	// The number of sudokus which are generated together by one worker.
+	private static final int BATCH_SIZE = 16;
+	// The number of nodes after which a check of the uniqueness gives up.
+	private static final long NODE_BUDGET = 20000;
+	// The number of rows and columns of a subgrid.
+	private final int boxSize;
+	// The number of clues at which the removal stops.
+	private final int clues;
+	// The symmetry of the clues.
+	private final Symmetry symmetry;
+	// The engine which checks whether the solution is unique.
+	private final DancingLinksEngine counter = new DancingLinksEngine();
+
+	/**
+	 * Creates a new generator.
+	 *
+	 * @param boxSize
+	 *            The number of rows and columns of a subgrid, 3 for regular
+	 *            sudokus.
+	 * @param clues
+	 *            The number of clues at which the removal stops, 0 to remove
+	 *            as many clues as possible.
+	 * @param symmetry
+	 *            The symmetry of the clues.
+	 * @throws IllegalArgumentException
+	 *             When the size is not supported.
+	 */
+	public Generator(int boxSize, int clues, Symmetry symmetry)
+			throws IllegalArgumentException {
+		Layout.of(boxSize);
+		this.boxSize = boxSize;
+		this.clues = clues;
+		this.symmetry = symmetry;
+	}
+
+	/**
+	 * Generates a sudoku with a unique solution.
+	 *
+	 * @param random
+	 *            The source of randomness.
+	 * @return the sudoku, whose clues are the original values.
+	 */
+	public Sudoku generate(Random random) {
+		Sudoku sudoku = createGrid(random);
+		int size = sudoku.getSize();
+		int cells = size * size;
+
+		int[] order = new int[cells];
+		for (int i = 0; i < cells; i++)
+			order[i] = i;
+		for (int i = cells - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+
+		int remaining = cells;
+		int[] values = new int[4];
+		for (int cell : order) {
+			if (remaining <= clues)
+				break;
+			if (sudoku.getValueAt(cell / size, cell % size) == 0)
+				continue;
+			int[] orbit = symmetry.getOrbit(cell, size);
+			if (remaining - orbit.length < clues)
+				continue;
+			for (int i = 0; i < orbit.length; i++) {
+				values[i] = sudoku.getValueAt(orbit[i] / size, orbit[i] % size);
+				sudoku.setValue(orbit[i] / size, orbit[i] % size, 0, false);
+			}
+			if (counter.countSolutions(sudoku.getSudokuString(), 2,
+					NODE_BUDGET) == 1)
+				remaining -= orbit.length;
+			else
+				for (int i = 0; i < orbit.length; i++)
+					sudoku.setValue(orbit[i] / size, orbit[i] % size,
+							values[i], true);
+		}
+		return new Sudoku(sudoku.getSudokuString());
+	}
+
+	/**
+	 * Generates the given number of sudokus on the given number of workers
+	 * and writes them to the writer in the given format, separated by line
+	 * breaks, as soon as they are generated.
+	 *
+	 * @param count
+	 *            The number of sudokus to generate.
+	 * @param workers
+	 *            The number of workers which generate in parallel.
+	 * @param format
+	 *            The format to write the sudokus in.
+	 * @param writer
+	 *            The writer to write the sudokus to.
+	 * @throws IOException
+	 *             When a sudoku cannot be written.
+	 */
+	public void generate(long count, int workers, SudokuFormat format,
+			BufferedWriter writer) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		CompletionService<Sudoku[]> completion = new ExecutorCompletionService<Sudoku[]>(
+				executor);
+		try {
+			long submitted = 0;
+			int running = 0;
+			while (submitted < count || running > 0) {
+				// Keep every worker busy.
+				while (submitted < count && running < workers * 2) {
+					int size = (int) Math.min(BATCH_SIZE, count - submitted);
+					completion.submit(new Batch(size));
+					submitted += size;
+					running++;
+				}
+				Sudoku[] batch;
+				try {
+					batch = completion.take().get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while generating!");
+				} catch (ExecutionException e) {
+					throw new IOException("Generating failed: " + e.getCause());
+				}
+				running--;
+				for (Sudoku sudoku : batch) {
+					format.write(writer, sudoku);
+					writer.newLine();
+				}
+			}
+			writer.flush();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Creates a random complete grid. The subgrids on the diagonal do not
+	 * share a row or column, so they are filled with random permutations and
+	 * the rest of the grid is completed by the search.
+	 *
+	 * @param random
+	 *            The source of randomness.
+	 * @return the complete grid.
+	 */
+	private Sudoku createGrid(Random random) {
+		int size = boxSize * boxSize;
+		int[] values = new int[size];
+		while (true) {
+			Sudoku sudoku = new Sudoku(boxSize);
+			for (int box = 0; box < boxSize; box++) {
+				for (int i = 0; i < size; i++) {
+					int j = random.nextInt(i + 1);
+					values[i] = values[j];
+					values[j] = i + 1;
+				}
+				for (int i = 0; i < size; i++)
+					sudoku.place((box * boxSize + i / boxSize) * size + box
+							* boxSize + i % boxSize, values[i]);
+			}
+			if (sudoku.findSolution(new AtomicBoolean(false)))
+				return sudoku;
+		}
+	}
+
+	/**
+	 * A batch of sudokus which is generated by one worker.
+	 */
+	private class Batch implements Callable<Sudoku[]> {
+		// The number of sudokus of the batch.
+		private final int size;
+
+		/**
+		 * Creates a new batch of the given number of sudokus.
+		 */
+		Batch(int size) {
+			this.size = size;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public Sudoku[] call() {
+			Sudoku[] sudokus = new Sudoku[size];
+			for (int i = 0; i < size; i++)
+				sudokus[i] = generate(ThreadLocalRandom.current());
+			return sudokus;
+		}
+	}
+}
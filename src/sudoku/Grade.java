@@ -0,0 +1,98 @@
+package sudoku;
+
+/**
+ * The difficulty of a sudoku as rated by the {@link Grader}: whether the
+ * techniques solve it, the hardest technique that was needed and how often
+ * each technique was applied.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public final class Grade {
+	// Whether the techniques solved the sudoku.
+	private final boolean solved;
+	// The hardest technique which was applied.
+	private final Technique hardest;
+	// The number of times each technique was applied.
+	private final int[] counts;
+	// The time spent grading in nanoseconds.
+	private final long time;
+
+	/**
+	 * Creates a new grade.
+	 *
+	 * @param solved
+	 *            Whether the techniques solved the sudoku.
+	 * @param counts
+	 *            The number of times each technique was applied, by ordinal.
+	 * @param time
+	 *            The time spent grading in nanoseconds.
+	 */
+	Grade(boolean solved, int[] counts, long time) {
+		this.solved = solved;
+		this.counts = counts.clone();
+		this.time = time;
+		Technique hardest = null;
+		for (Technique technique : Technique.values())
+			if (counts[technique.ordinal()] > 0)
+				hardest = technique;
+		this.hardest = hardest;
+	}
+
+	/**
+	 * Returns whether the techniques solved the sudoku. When they did not, the
+	 * sudoku needs guessing, has several solutions or has none.
+	 *
+	 * @return whether the sudoku was solved.
+	 */
+	public boolean isSolved() {
+		return solved;
+	}
+
+	/**
+	 * Returns the hardest technique which was applied.
+	 *
+	 * @return the hardest technique, or null when no technique was applied.
+	 */
+	public Technique getHardest() {
+		return hardest;
+	}
+
+	/**
+	 * Returns the number of times the given technique was applied.
+	 *
+	 * @param technique
+	 *            The technique.
+	 * @return the number of applications of the technique.
+	 */
+	public int getCount(Technique technique) {
+		return counts[technique.ordinal()];
+	}
+
+	/**
+	 * Returns the time spent grading.
+	 *
+	 * @return the time in nanoseconds.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		result.append(solved ? "solved" : "unsolved").append(", hardest: ")
+				.append(hardest == null ? "none" : hardest.getName());
+		for (Technique technique : Technique.values())
+			if (counts[technique.ordinal()] > 0)
+				result.append(", ").append(technique.getName()).append(": ")
+						.append(counts[technique.ordinal()]);
+		return result.append(", ").append(time / 1000).append(" us")
+				.toString();
+	}
+}
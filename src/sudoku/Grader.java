@@ -0,0 +1,577 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Rates the difficulty of sudokus by solving them with human techniques.
+ *
+ * The grader keeps the candidates of every cell and updates them on every
+ * placement and elimination. It always applies the easiest technique which
+ * makes progress, see {@link Technique}, and starts again from the easiest one
+ * afterwards. The hardest technique that was needed rates the sudoku.
+ *
+ * A grader reuses its arrays for every sudoku, so every thread should use its
+ * own grader.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class Grader {
+	// The geometry of the sudokus.
+	private final Layout layout;
+	// The number of rows, columns and values.
+	private final int size;
+	// The number of cells.
+	private final int cells;
+	// Mask in which every value is set.
+	private final int all;
+	// The cells of the rows, columns and subgrids.
+	private final int[][] units;
+	// The value of each cell, 0 when it is empty.
+	private final int[] values;
+	// The candidates of each empty cell as a mask.
+	private final int[] candidates;
+	// The cells or values of a unit considered by a technique.
+	private final int[] list;
+	// The places of each value in a unit as a mask.
+	private final int[] places;
+	// The values a cell is forced to take in a chain, as a mask.
+	private final int[] forced;
+	// The queue of a chain, of cells times 32 plus the index of their value.
+	private final int[] queue;
+	// The number of times each technique was applied.
+	private final int[] counts = new int[Technique.values().length];
+	// The number of empty cells.
+	private int unsolved;
+	// Whether a contradiction was found.
+	private boolean contradiction;
+
+	/**
+	 * Creates a new grader for regular sudokus.
+	 */
+	public Grader() {
+		this(3);
+	}
+
+	/**
+	 * Creates a new grader for sudokus with subgrids of the given size.
+	 *
+	 * @param boxSize
+	 *            The number of rows and columns of a subgrid.
+	 * @throws IllegalArgumentException
+	 *             When the size is not supported.
+	 */
+	public Grader(int boxSize) throws IllegalArgumentException {
+		layout = Layout.of(boxSize);
+		size = layout.getSize();
+		cells = layout.getCells();
+		all = layout.getAll();
+		units = layout.units;
+		values = new int[cells];
+		candidates = new int[cells];
+		list = new int[size];
+		places = new int[size];
+		forced = new int[cells];
+		queue = new int[2 * cells];
+	}
+
+	/**
+	 * Grades the given sudoku.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell, where 0 is
+	 *            an empty cell.
+	 * @return the grade of the sudoku.
+	 * @throws NullPointerException
+	 *             When the sudokustring is null.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 */
+	public Grade grade(String sudokustring) throws NullPointerException,
+			IllegalArgumentException {
+		long startTime = System.nanoTime();
+		if (Layout.forString(sudokustring) != layout)
+			throw new IllegalArgumentException("the sudokustring must have "
+					+ cells + " characters!");
+		Arrays.fill(values, 0);
+		Arrays.fill(candidates, all);
+		Arrays.fill(counts, 0);
+		unsolved = cells;
+		contradiction = false;
+		for (int cell = 0; cell < cells; cell++) {
+			char c = sudokustring.charAt(cell);
+			int value = Layout.toValue(c);
+			if (value < 0 || value > size)
+				throw new IllegalArgumentException("Invalid character '" + c
+						+ "' at position " + cell + "!");
+			if (value == 0)
+				continue;
+			if ((candidates[cell] & (1 << (value - 1))) == 0)
+				contradiction = true;
+			else
+				place(cell, value);
+		}
+
+		while (!contradiction && unsolved > 0 && step())
+			;
+		return new Grade(!contradiction && unsolved == 0, counts,
+				System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Applies the easiest technique which makes progress.
+	 *
+	 * @return whether a technique made progress.
+	 */
+	private boolean step() {
+		if (nakedSingle())
+			return applied(Technique.NAKED_SINGLE);
+		if (contradiction)
+			return false;
+		if (hiddenSingle())
+			return applied(Technique.HIDDEN_SINGLE);
+		if (contradiction)
+			return false;
+		if (lockedCandidates())
+			return applied(Technique.LOCKED_CANDIDATES);
+		if (nakedSubset(2))
+			return applied(Technique.NAKED_PAIR);
+		if (hiddenSubset(2))
+			return applied(Technique.HIDDEN_PAIR);
+		if (nakedSubset(3))
+			return applied(Technique.NAKED_TRIPLE);
+		if (hiddenSubset(3))
+			return applied(Technique.HIDDEN_TRIPLE);
+		if (fish(2))
+			return applied(Technique.X_WING);
+		if (fish(3))
+			return applied(Technique.SWORDFISH);
+		if (xyWing())
+			return applied(Technique.XY_WING);
+		if (xyChain())
+			return applied(Technique.XY_CHAIN);
+		return false;
+	}
+
+	/**
+	 * Counts an application of the given technique.
+	 *
+	 * @param technique
+	 *            The technique which was applied.
+	 * @return true.
+	 */
+	private boolean applied(Technique technique) {
+		counts[technique.ordinal()]++;
+		return true;
+	}
+
+	/**
+	 * Puts the given value in the given cell and removes it from the
+	 * candidates of its peers.
+	 *
+	 * @param cell
+	 *            The index of the cell.
+	 * @param value
+	 *            The value between 1 and size.
+	 */
+	private void place(int cell, int value) {
+		int bit = 1 << (value - 1);
+		values[cell] = value;
+		candidates[cell] = 0;
+		unsolved--;
+		for (int peer : layout.peers[cell])
+			candidates[peer] &= ~bit;
+	}
+
+	/**
+	 * Removes the given candidates from the given cell.
+	 *
+	 * @param cell
+	 *            The index of the cell.
+	 * @param mask
+	 *            The candidates to remove.
+	 * @return whether a candidate was removed.
+	 */
+	private boolean eliminate(int cell, int mask) {
+		if ((candidates[cell] & mask) == 0)
+			return false;
+		candidates[cell] &= ~mask;
+		return true;
+	}
+
+	/**
+	 * Returns whether the given cells share a row, column or subgrid.
+	 *
+	 * @param a
+	 *            The index of the first cell.
+	 * @param b
+	 *            The index of the second cell.
+	 * @return whether the cells see each other.
+	 */
+	private boolean sees(int a, int b) {
+		return a != b
+				&& (layout.row[a] == layout.row[b]
+						|| layout.column[a] == layout.column[b]
+						|| layout.box[a] == layout.box[b]);
+	}
+
+	/**
+	 * Fills in a cell with a single candidate.
+	 *
+	 * @return whether a cell was filled in.
+	 */
+	private boolean nakedSingle() {
+		for (int cell = 0; cell < cells; cell++) {
+			if (values[cell] > 0)
+				continue;
+			int mask = candidates[cell];
+			if (mask == 0) {
+				contradiction = true;
+				return false;
+			}
+			if ((mask & (mask - 1)) == 0) {
+				place(cell, Integer.numberOfTrailingZeros(mask) + 1);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Fills in a value with a single place in a unit.
+	 *
+	 * @return whether a cell was filled in.
+	 */
+	private boolean hiddenSingle() {
+		for (int[] unit : units) {
+			int once = 0, twice = 0, used = 0;
+			for (int cell : unit)
+				if (values[cell] > 0)
+					used |= 1 << (values[cell] - 1);
+				else {
+					twice |= once & candidates[cell];
+					once |= candidates[cell];
+				}
+			if ((once | used) != all) {
+				contradiction = true;
+				return false;
+			}
+			int single = once & ~twice;
+			if (single != 0) {
+				int bit = single & -single;
+				for (int cell : unit)
+					if ((candidates[cell] & bit) != 0) {
+						place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+						return true;
+					}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes a candidate from a line when its places in a subgrid all lie on
+	 * that line, or from a subgrid when its places on a line all lie in that
+	 * subgrid.
+	 *
+	 * @return whether a candidate was removed.
+	 */
+	private boolean lockedCandidates() {
+		for (int u = 0; u < 3 * size; u++)
+			for (int bit = 1; bit <= all; bit <<= 1) {
+				// The rows, columns and subgrids of the places of the value.
+				int rows = 0, columns = 0, boxes = 0;
+				for (int cell : units[u])
+					if ((candidates[cell] & bit) != 0) {
+						rows |= 1 << layout.row[cell];
+						columns |= 1 << layout.column[cell];
+						boxes |= 1 << layout.box[cell];
+					}
+				if (rows == 0)
+					continue;
+				boolean changed = false;
+				if (u >= 2 * size) {
+					// Pointing: the places in the subgrid lie on one line.
+					if (Integer.bitCount(rows) == 1)
+						for (int cell : units[Integer.numberOfTrailingZeros(rows)])
+							if (layout.box[cell] != u - 2 * size)
+								changed |= eliminate(cell, bit);
+					if (Integer.bitCount(columns) == 1)
+						for (int cell : units[size
+								+ Integer.numberOfTrailingZeros(columns)])
+							if (layout.box[cell] != u - 2 * size)
+								changed |= eliminate(cell, bit);
+				} else if (Integer.bitCount(boxes) == 1) {
+					// Claiming: the places on the line lie in one subgrid.
+					for (int cell : units[2 * size
+							+ Integer.numberOfTrailingZeros(boxes)])
+						if (u < size ? layout.row[cell] != u
+								: layout.column[cell] != u - size)
+							changed |= eliminate(cell, bit);
+				}
+				if (changed)
+					return true;
+			}
+		return false;
+	}
+
+	/**
+	 * Removes the candidates of k cells of a unit which have only k
+	 * candidates together from the other cells of the unit.
+	 *
+	 * @param k
+	 *            The number of cells, 2 or 3.
+	 * @return whether a candidate was removed.
+	 */
+	private boolean nakedSubset(int k) {
+		for (int[] unit : units) {
+			int m = 0;
+			for (int cell : unit) {
+				int count = Integer.bitCount(candidates[cell]);
+				if (count >= 2 && count <= k)
+					list[m++] = cell;
+			}
+			for (int i = 0; i < m; i++)
+				for (int j = i + 1; j < m; j++) {
+					int pair = candidates[list[i]] | candidates[list[j]];
+					if (k == 2) {
+						if (Integer.bitCount(pair) == 2
+								&& removeFromOthers(unit, pair, list[i],
+										list[j], -1))
+							return true;
+						continue;
+					}
+					for (int l = j + 1; l < m; l++) {
+						int triple = pair | candidates[list[l]];
+						if (Integer.bitCount(triple) == 3
+								&& removeFromOthers(unit, triple, list[i],
+										list[j], list[l]))
+							return true;
+					}
+				}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the given candidates from the cells of the unit other than the
+	 * given cells.
+	 *
+	 * @return whether a candidate was removed.
+	 */
+	private boolean removeFromOthers(int[] unit, int mask, int a, int b, int c) {
+		boolean changed = false;
+		for (int cell : unit)
+			if (cell != a && cell != b && cell != c)
+				changed |= eliminate(cell, mask);
+		return changed;
+	}
+
+	/**
+	 * Removes the other candidates from the cells of a unit which are the
+	 * only places of k values.
+	 *
+	 * @param k
+	 *            The number of values, 2 or 3.
+	 * @return whether a candidate was removed.
+	 */
+	private boolean hiddenSubset(int k) {
+		for (int[] unit : units) {
+			Arrays.fill(places, 0);
+			for (int i = 0; i < size; i++)
+				for (int mask = candidates[unit[i]]; mask != 0; mask &= mask - 1)
+					places[Integer.numberOfTrailingZeros(mask)] |= 1 << i;
+			int m = 0;
+			for (int value = 0; value < size; value++) {
+				int count = Integer.bitCount(places[value]);
+				if (count >= 2 && count <= k)
+					list[m++] = value;
+			}
+			for (int i = 0; i < m; i++)
+				for (int j = i + 1; j < m; j++) {
+					int pair = places[list[i]] | places[list[j]];
+					int digits = (1 << list[i]) | (1 << list[j]);
+					if (k == 2) {
+						if (Integer.bitCount(pair) == 2
+								&& keepOnly(unit, pair, digits))
+							return true;
+						continue;
+					}
+					for (int l = j + 1; l < m; l++) {
+						int triple = pair | places[list[l]];
+						if (Integer.bitCount(triple) == 3
+								&& keepOnly(unit, triple, digits
+										| (1 << list[l])))
+							return true;
+					}
+				}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all candidates but the given values from the given places of
+	 * the unit.
+	 *
+	 * @return whether a candidate was removed.
+	 */
+	private boolean keepOnly(int[] unit, int positions, int digits) {
+		boolean changed = false;
+		for (; positions != 0; positions &= positions - 1)
+			changed |= eliminate(
+					unit[Integer.numberOfTrailingZeros(positions)], ~digits);
+		return changed;
+	}
+
+	/**
+	 * Removes a value from the columns (rows) in which its places lie in k
+	 * rows (columns), from the other rows (columns) of those columns (rows).
+	 * An x-wing has k = 2 and a swordfish k = 3.
+	 *
+	 * @param k
+	 *            The number of lines.
+	 * @return whether a candidate was removed.
+	 */
+	private boolean fish(int k) {
+		for (int base = 0; base <= size; base += size) {
+			// The base lines are the rows (base 0) or the columns (base size).
+			int cover = size - base;
+			for (int bit = 1; bit <= all; bit <<= 1) {
+				int m = 0;
+				for (int line = 0; line < size; line++) {
+					int positions = 0;
+					for (int i = 0; i < size; i++)
+						if ((candidates[units[base + line][i]] & bit) != 0)
+							positions |= 1 << i;
+					places[line] = positions;
+					int count = Integer.bitCount(positions);
+					if (count >= 2 && count <= k)
+						list[m++] = line;
+				}
+				for (int i = 0; i < m; i++)
+					for (int j = i + 1; j < m; j++) {
+						int pair = places[list[i]] | places[list[j]];
+						int lines = (1 << list[i]) | (1 << list[j]);
+						if (k == 2) {
+							if (Integer.bitCount(pair) == 2
+									&& removeFromCover(cover, pair, lines, bit))
+								return true;
+							continue;
+						}
+						for (int l = j + 1; l < m; l++) {
+							int triple = pair | places[list[l]];
+							if (Integer.bitCount(triple) == 3
+									&& removeFromCover(cover, triple, lines
+											| (1 << list[l]), bit))
+								return true;
+						}
+					}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the given candidate from the given cover lines, except in the
+	 * given base lines.
+	 *
+	 * @return whether a candidate was removed.
+	 */
+	private boolean removeFromCover(int cover, int covers, int lines, int bit) {
+		boolean changed = false;
+		for (; covers != 0; covers &= covers - 1) {
+			int[] unit = units[cover + Integer.numberOfTrailingZeros(covers)];
+			for (int i = 0; i < size; i++)
+				if ((lines & (1 << i)) == 0)
+					changed |= eliminate(unit[i], bit);
+		}
+		return changed;
+	}
+
+	/**
+	 * Removes the value z from the cells which see both pincers of a pivot
+	 * with candidates xy, whose peers have candidates xz and yz.
+	 *
+	 * @return whether a candidate was removed.
+	 */
+	private boolean xyWing() {
+		for (int pivot = 0; pivot < cells; pivot++) {
+			int xy = candidates[pivot];
+			if (Integer.bitCount(xy) != 2)
+				continue;
+			for (int a : layout.peers[pivot]) {
+				int xz = candidates[a];
+				if (Integer.bitCount(xz) != 2
+						|| Integer.bitCount(xz & xy) != 1)
+					continue;
+				int z = xz & ~xy;
+				int yz = (xy & ~xz) | z;
+				for (int b : layout.peers[pivot]) {
+					if (candidates[b] != yz || sees(a, b))
+						continue;
+					if (removeFromCommonPeers(a, b, z))
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the value z from the cells which see both ends of a chain of
+	 * cells with two candidates, in which each cell shares a value with the
+	 * next, and whose ends both have candidate z. Either the first cell is z
+	 * or the chain forces the last cell to be z.
+	 *
+	 * @return whether a candidate was removed.
+	 */
+	private boolean xyChain() {
+		for (int start = 0; start < cells; start++) {
+			int mask = candidates[start];
+			if (Integer.bitCount(mask) != 2)
+				continue;
+			for (int rest = mask; rest != 0; rest &= rest - 1) {
+				int z = rest & -rest;
+				// When the start is not z it is the other value.
+				Arrays.fill(forced, 0);
+				int head = 0, tail = 0;
+				int first = mask & ~z;
+				queue[tail++] = start << 5 | Integer.numberOfTrailingZeros(first);
+				forced[start] = first;
+				while (head < tail) {
+					int cell = queue[head] >>> 5;
+					int value = 1 << (queue[head++] & 31);
+					for (int peer : layout.peers[cell]) {
+						int pair = candidates[peer];
+						if (peer == start || Integer.bitCount(pair) != 2
+								|| (pair & value) == 0)
+							continue;
+						// The peer is not the value, so it is the other one.
+						int other = pair & ~value;
+						if (other == z && removeFromCommonPeers(start, peer, z))
+							return true;
+						if ((forced[peer] & other) != 0)
+							continue;
+						forced[peer] |= other;
+						queue[tail++] = peer << 5
+								| Integer.numberOfTrailingZeros(other);
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the given candidate from the cells which see both given cells.
+	 *
+	 * @return whether a candidate was removed.
+	 */
+	private boolean removeFromCommonPeers(int a, int b, int bit) {
+		boolean changed = false;
+		for (int cell : layout.peers[a])
+			if (cell != b && sees(cell, b))
+				changed |= eliminate(cell, bit);
+		return changed;
+	}
+}
@@ -0,0 +1,213 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * An immutable sudoku which only holds its values, for keeping large numbers
+ * of sudokus in memory and as the key of maps.
+ *
+ * The values are packed into a byte array: two cells per byte for sudokus up
+ * to 9x9, so a regular sudoku takes 41 bytes, and one cell per byte for the
+ * larger sizes. The hash code is computed once.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public final class Grid {
+	// The geometry of the sudoku.
+	private final Layout layout;
+	// The values of the cells, two per byte when they fit in a nibble.
+	private final byte[] data;
+	// The hash code of the values.
+	private final int hash;
+
+	/**
+	 * Creates a new grid with the given packed values.
+	 *
+	 * @param layout
+	 *            The geometry of the sudoku.
+	 * @param data
+	 *            The packed values, which are owned by the grid.
+	 */
+	private Grid(Layout layout, byte[] data) {
+		this.layout = layout;
+		this.data = data;
+		this.hash = Arrays.hashCode(data) * 31 + layout.getBoxSize();
+	}
+
+	/**
+	 * Creates a grid from the given string.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell, where 0 or
+	 *            a dot is an empty cell and values above 9 are written as the
+	 *            letters A to P.
+	 * @return the grid.
+	 * @throws NullPointerException
+	 *             When the sudokustring is null.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 */
+	public static Grid of(String sudokustring) throws NullPointerException,
+			IllegalArgumentException {
+		Layout layout = Layout.forString(sudokustring);
+		int cells = layout.getCells();
+		if (sudokustring.length() != cells)
+			throw new IllegalArgumentException("the sudokustring must have "
+					+ cells + " characters!");
+		byte[] data = allocate(layout);
+		for (int cell = 0; cell < cells; cell++) {
+			char c = sudokustring.charAt(cell);
+			int value = Layout.toValue(c);
+			if (value < 0 || value > layout.getSize())
+				throw new IllegalArgumentException("Invalid character '" + c
+						+ "' at position " + cell + "!");
+			put(layout, data, cell, value);
+		}
+		return new Grid(layout, data);
+	}
+
+	/**
+	 * Creates a grid with the current values of the given sudoku. The grid
+	 * does not remember which values are original.
+	 *
+	 * @param sudoku
+	 *            The sudoku.
+	 * @return the grid.
+	 */
+	public static Grid of(Sudoku sudoku) {
+		Layout layout = sudoku.getLayout();
+		int size = layout.getSize();
+		byte[] data = allocate(layout);
+		for (int cell = 0; cell < layout.getCells(); cell++)
+			put(layout, data, cell, sudoku.getValueAt(cell / size, cell % size));
+		return new Grid(layout, data);
+	}
+
+	/**
+	 * Returns whether the values of the given layout are packed two per byte.
+	 */
+	private static boolean isPacked(Layout layout) {
+		return layout.getSize() < 16;
+	}
+
+	/**
+	 * Allocates the array for the values of a sudoku with the given layout.
+	 */
+	private static byte[] allocate(Layout layout) {
+		int cells = layout.getCells();
+		return new byte[isPacked(layout) ? (cells + 1) / 2 : cells];
+	}
+
+	/**
+	 * Stores the value of the given cell in the packed values.
+	 */
+	private static void put(Layout layout, byte[] data, int cell, int value) {
+		if (!isPacked(layout))
+			data[cell] = (byte) value;
+		else if ((cell & 1) == 0)
+			data[cell >> 1] |= (byte) value;
+		else
+			data[cell >> 1] |= (byte) (value << 4);
+	}
+
+	/**
+	 * Returns the value of the given cell.
+	 *
+	 * @param cell
+	 *            The index of the cell (row * size + column).
+	 * @return the value, 0 when the cell is empty.
+	 */
+	public int get(int cell) {
+		if (!isPacked(layout))
+			return data[cell];
+		return (data[cell >> 1] >> ((cell & 1) << 2)) & 0xF;
+	}
+
+	/**
+	 * Returns the value at the given position.
+	 *
+	 * @param row
+	 *            The row of the value (between 0 and size - 1).
+	 * @param column
+	 *            The column of the value (between 0 and size - 1).
+	 * @return the value, 0 when the cell is empty.
+	 */
+	public int getValueAt(int row, int column) {
+		return get(row * layout.getSize() + column);
+	}
+
+	/**
+	 * Returns the geometry of the sudoku.
+	 *
+	 * @return the layout.
+	 */
+	public Layout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Returns the number of cells which are not empty.
+	 *
+	 * @return the number of clues.
+	 */
+	public int getClues() {
+		int clues = 0;
+		for (int cell = 0; cell < layout.getCells(); cell++)
+			if (get(cell) != 0)
+				clues++;
+		return clues;
+	}
+
+	/**
+	 * Creates a sudoku with the values of the grid as original values.
+	 *
+	 * @return the sudoku.
+	 * @throws IllegalStateException
+	 *             When two values contradict each other.
+	 */
+	public Sudoku toSudoku() throws IllegalStateException {
+		return new Sudoku(toString());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object object) {
+		if (this == object)
+			return true;
+		if (!(object instanceof Grid))
+			return false;
+		Grid grid = (Grid) object;
+		return hash == grid.hash && layout == grid.layout
+				&& Arrays.equals(data, grid.data);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * Returns the sudoku as a string with a character per cell, where 0 is an
+	 * empty cell, see {@link Sudoku#getSudokuString()}.
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		int cells = layout.getCells();
+		char[] result = new char[cells];
+		for (int cell = 0; cell < cells; cell++)
+			result[cell] = Layout.toChar(get(cell));
+		return new String(result);
+	}
+}
@@ -0,0 +1,192 @@
+package sudoku;
+
+/**
+ * The geometry of a sudoku with subgrids of a given size: a regular sudoku has
+ * 3x3 subgrids and 9x9 cells, larger sudokus have 4x4 or 5x5 subgrids and
+ * 16x16 or 25x25 cells.
+ *
+ * The layout holds the precomputed row, column, subgrid, peer and unit tables
+ * which the solvers share between all sudokus of the same size. Values are
+ * stored as bits in an int mask, so a layout supports at most 25 values.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public final class Layout {
+	// The smallest supported size of the subgrids.
+	public static final int MIN_BOX_SIZE = 2;
+	// The largest supported size of the subgrids.
+	public static final int MAX_BOX_SIZE = 5;
+	// The layouts which were created, by the size of their subgrids.
+	private static final Layout[] layouts = new Layout[MAX_BOX_SIZE + 1];
+
+	// The number of rows and columns of a subgrid.
+	private final int boxSize;
+	// The number of rows and columns, which is also the number of values.
+	private final int size;
+	// The number of cells.
+	private final int cells;
+	// The mask in which every value is set.
+	private final int all;
+	// The row of each cell.
+	final int[] row;
+	// The column of each cell.
+	final int[] column;
+	// The subgrid of each cell.
+	final int[] box;
+	// The cells sharing a row, column or subgrid with each cell.
+	final int[][] peers;
+	// The cells of the rows, followed by the columns and the subgrids.
+	final int[][] units;
+
+	/**
+	 * Creates the layout for subgrids of the given size.
+	 *
+	 * @param boxSize
+	 *            The number of rows and columns of a subgrid.
+	 */
+	private Layout(int boxSize) {
+		this.boxSize = boxSize;
+		this.size = boxSize * boxSize;
+		this.cells = size * size;
+		this.all = (1 << size) - 1;
+		row = new int[cells];
+		column = new int[cells];
+		box = new int[cells];
+		units = new int[3 * size][size];
+		peers = new int[cells][2 * (size - 1) + (boxSize - 1) * (boxSize - 1)];
+
+		for (int cell = 0; cell < cells; cell++) {
+			row[cell] = cell / size;
+			column[cell] = cell % size;
+			box[cell] = (row[cell] / boxSize) * boxSize + column[cell] / boxSize;
+			units[row[cell]][column[cell]] = cell;
+			units[size + column[cell]][row[cell]] = cell;
+			units[2 * size + box[cell]][(row[cell] % boxSize) * boxSize
+					+ column[cell] % boxSize] = cell;
+		}
+		for (int cell = 0; cell < cells; cell++)
+			for (int other = 0, count = 0; other < cells; other++)
+				if (other != cell
+						&& (row[other] == row[cell]
+								|| column[other] == column[cell] || box[other] == box[cell]))
+					peers[cell][count++] = other;
+	}
+
+	/**
+	 * Returns the layout for subgrids of the given size.
+	 *
+	 * @param boxSize
+	 *            The number of rows and columns of a subgrid.
+	 * @return the layout for the given size.
+	 * @throws IllegalArgumentException
+	 *             When the size is not supported.
+	 */
+	public static synchronized Layout of(int boxSize)
+			throws IllegalArgumentException {
+		if (boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE)
+			throw new IllegalArgumentException("subgrids of size " + boxSize
+					+ " are not supported!");
+		if (layouts[boxSize] == null)
+			layouts[boxSize] = new Layout(boxSize);
+		return layouts[boxSize];
+	}
+
+	/**
+	 * Returns the layout of the sudoku in the given string. Strings of exactly
+	 * 16, 256 or 625 characters hold a 4x4, 16x16 or 25x25 sudoku, any other
+	 * string of at least 81 characters holds a regular sudoku.
+	 *
+	 * @param sudokustring
+	 *            The string with the sudoku.
+	 * @return the layout of the sudoku.
+	 * @throws NullPointerException
+	 *             When the sudokustring is null.
+	 * @throws IllegalArgumentException
+	 *             When the string is too short.
+	 */
+	public static Layout forString(String sudokustring)
+			throws NullPointerException, IllegalArgumentException {
+		if (sudokustring == null)
+			throw new NullPointerException("the given sudokustring is null!");
+		for (int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++)
+			if (boxSize != 3
+					&& sudokustring.length() == boxSize * boxSize * boxSize
+							* boxSize)
+				return of(boxSize);
+		if (sudokustring.length() < 81)
+			throw new IllegalArgumentException(
+					"the sudokustring must be at least 81 characters long!");
+		return of(3);
+	}
+
+	/**
+	 * Returns the character for the given value: 0 for an empty cell, the
+	 * digits 1 to 9 and the letters A to P for the values 10 to 25.
+	 *
+	 * @param value
+	 *            The value between 0 and 25.
+	 * @return the character for the value.
+	 */
+	public static char toChar(int value) {
+		return (char) (value < 10 ? '0' + value : 'A' + value - 10);
+	}
+
+	/**
+	 * Returns the value of the given character, which is the inverse of
+	 * {@link #toChar(int)}. A dot is an empty cell as well and lower case
+	 * letters are accepted.
+	 *
+	 * @param c
+	 *            The character.
+	 * @return the value of the character, or -1 when it is no value.
+	 */
+	public static int toValue(char c) {
+		if (c >= '0' && c <= '9')
+			return c - '0';
+		if (c == '.')
+			return 0;
+		if (c >= 'A' && c <= 'P')
+			return c - 'A' + 10;
+		if (c >= 'a' && c <= 'p')
+			return c - 'a' + 10;
+		return -1;
+	}
+
+	/**
+	 * Returns the number of rows and columns of a subgrid.
+	 *
+	 * @return the size of a subgrid.
+	 */
+	public int getBoxSize() {
+		return boxSize;
+	}
+
+	/**
+	 * Returns the number of rows and columns, which is also the number of
+	 * different values.
+	 *
+	 * @return the size of the sudoku.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of cells.
+	 *
+	 * @return the number of cells.
+	 */
+	public int getCells() {
+		return cells;
+	}
+
+	/**
+	 * Returns the mask in which every value is set.
+	 *
+	 * @return the mask with every value.
+	 */
+	public int getAll() {
+		return all;
+	}
+}
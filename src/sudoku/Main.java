@@ -1,7 +1,14 @@
 package sudoku;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
 import swtgui.GUI;
 import io.LoadSudoku;
+import io.SudokuSaver;
+import server.SolveServer;
 
 /**
  * This method starts the application by creating a sudoku and a graphical user
@@ -12,21 +19,188 @@ import io.LoadSudoku;
  */
 public class Main {
 	/**
-	 * This method starts the application. The optional arguments can contain a
-	 * string of 81 characters which represents the sudoku.
+	 * This method starts the application. The optional arguments can contain
+	 * the file with the sudoku to solve and "-engine name" to select the solver
+	 * engine.
+	 * 
+	 * If no file is supplied, a standard sudoku is solved instead.
 	 * 
-	 * If no argument is supplied, a standard sudoku is solved instead.
+	 * With "-batch input output" no graphical user interface is started.
+	 * Instead every line of the input file is solved and the solutions are
+	 * written to the output file. The number of parallel workers is set with
+	 * "-workers n" and defaults to the number of processors.
 	 * 
+	 * With "-generate count output" the given number of sudokus with a unique
+	 * solution is generated and written to the output file, in the format of
+	 * its extension. "-clues n" sets the number of clues at which the
+	 * generator stops removing clues and "-symmetry name" the symmetry of the
+	 * clues.
+	 *
+	 * With "-grade input output" every line of the input file is graded by the
+	 * human techniques it needs and the grades are written to the output file
+	 * as comma separated values.
+	 *
+	 * With "-serve port" a HTTP service is started which solves the sudokus
+	 * posted to "/solve" and reports its latencies at "/stats".
+	 *
 	 * @param args
 	 *            The arguments for the program.
 	 */
 	public static void main(String[] args) {
-		Sudoku sudoku;
+		String filename = "sudokus/mostdifficult.txt";
+		String output = null;
+		boolean batch = false;
+		boolean grade = false;
+		int port = -1;
+		long generate = 0;
+		int clues = 0;
+		Symmetry symmetry = Symmetry.NONE;
+		int workers = Runtime.getRuntime().availableProcessors();
+		SolverEngine engine = SolverEngines.getInstance().getDefaultEngine();
+
+		for (int i = 0; i < args.length; i++)
+			if (args[i].equals("-engine") && i + 1 < args.length)
+				engine = SolverEngines.getInstance().getEngine(args[++i]);
+			else if (args[i].equals("-workers") && i + 1 < args.length)
+				workers = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-batch") && i + 2 < args.length) {
+				batch = true;
+				filename = args[++i];
+				output = args[++i];
+			} else if (args[i].equals("-grade") && i + 2 < args.length) {
+				grade = true;
+				filename = args[++i];
+				output = args[++i];
+			} else if (args[i].equals("-serve") && i + 1 < args.length)
+				port = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-generate") && i + 2 < args.length) {
+				generate = Long.parseLong(args[++i]);
+				output = args[++i];
+			} else if (args[i].equals("-clues") && i + 1 < args.length)
+				clues = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-symmetry") && i + 1 < args.length)
+				symmetry = Symmetry.valueOf(args[++i].toUpperCase());
+			else
+				filename = args[i];
+
+		if (port >= 0)
+			serve(port);
+		else if (generate > 0)
+			generate(new Generator(3, clues, symmetry), generate, workers,
+					output);
+		else if (grade)
+			gradeBatch(workers, filename, output);
+		else if (batch)
+			solveBatch(engine, workers, filename, output);
+		else {
+			Sudoku sudoku = new Sudoku(LoadSudoku.getInstance().loadSudoku(
+					filename));
+			new GUI(sudoku, engine);
+		}
+	}
+
+	/**
+	 * Starts the HTTP service, which runs until the program is stopped.
+	 * 
+	 * @param port
+	 *            The port to listen on.
+	 */
+	private static void serve(int port) {
+		try {
+			SolveServer server = new SolveServer(port);
+			server.start();
+			System.out.println("Serving on port " + server.getPort() + " with "
+					+ (server.isVirtual() ? "virtual threads" : "a thread pool"));
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+		}
+	}
 
-		if (args.length > 0)
-			sudoku = new Sudoku(LoadSudoku.getInstance().loadSudoku(args[0]));
-		else
-			sudoku = new Sudoku(LoadSudoku.getInstance().loadSudoku("sudokus/mostdifficult.txt"));
-		new GUI(sudoku);
+	/**
+	 * Generates sudokus into the output file and reports the throughput.
+	 * 
+	 * @param generator
+	 *            The generator of the sudokus.
+	 * @param count
+	 *            The number of sudokus to generate.
+	 * @param workers
+	 *            The number of parallel workers.
+	 * @param output
+	 *            The file to write the sudokus to.
+	 */
+	private static void generate(Generator generator, long count, int workers,
+			String output) {
+		try {
+			long startTime = System.nanoTime();
+			BufferedWriter writer = new BufferedWriter(new FileWriter(new File(
+					output)));
+			try {
+				generator.generate(count, workers, SudokuSaver.getInstance()
+						.getFormat(output), writer);
+			} finally {
+				writer.close();
+			}
+			double seconds = (System.nanoTime() - startTime) / 1e9;
+			System.out.println("Generated " + count + " sudokus in "
+					+ String.format("%.3f", seconds) + "s ("
+					+ String.format("%.0f", count / seconds)
+					+ " sudokus/second)");
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * Grades every sudoku of the input file and reports the throughput.
+	 * 
+	 * @param workers
+	 *            The number of parallel workers.
+	 * @param input
+	 *            The file with one sudoku per line.
+	 * @param output
+	 *            The file to write the grades to.
+	 */
+	private static void gradeBatch(int workers, String input, String output) {
+		BatchGrader grader = new BatchGrader(workers);
+		try {
+			long startTime = System.nanoTime();
+			long lines = grader.grade(input, output);
+			double seconds = (System.nanoTime() - startTime) / 1e9;
+			System.out.println("Graded " + lines + " sudokus, of which "
+					+ grader.getSolved() + " solved by the techniques, in "
+					+ String.format("%.3f", seconds) + "s ("
+					+ String.format("%.0f", lines / seconds)
+					+ " sudokus/second)");
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * Solves every sudoku of the input file and reports the throughput.
+	 * 
+	 * @param engine
+	 *            The engine which solves the sudokus.
+	 * @param workers
+	 *            The number of parallel workers.
+	 * @param input
+	 *            The file with one sudoku per line.
+	 * @param output
+	 *            The file to write the solutions to.
+	 */
+	private static void solveBatch(SolverEngine engine, int workers,
+			String input, String output) {
+		BatchSolver solver = new BatchSolver(engine, workers);
+		try {
+			long startTime = System.nanoTime();
+			long lines = solver.solve(input, output);
+			double seconds = (System.nanoTime() - startTime) / 1e9;
+			System.out.println("Solved " + solver.getSolved() + " of " + lines
+					+ " sudokus in " + String.format("%.3f", seconds) + "s ("
+					+ String.format("%.0f", lines / seconds)
+					+ " sudokus/second)");
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+		}
 	}
 }
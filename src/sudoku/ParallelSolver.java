@@ -0,0 +1,183 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The engine which searches the solution of a single sudoku on several cores.
+ *
+ * The search tree is split at the first branch points: every candidate of the
+ * cell with the fewest candidates becomes a fork/join task with its own copy
+ * of the sudoku. Below the split depth each task searches sequentially while
+ * filling in the singles at every node, and all tasks give up as soon as one
+ * of them has found a solution.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class ParallelSolver implements SolverEngine {
+	// The number of branch points at which the search tree is split.
+	private static final int SPLIT_DEPTH = 3;
+	// The pool which runs the tasks.
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a new parallel solver which uses the common fork/join pool.
+	 */
+	public ParallelSolver() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new parallel solver which uses the given pool.
+	 *
+	 * @param pool
+	 *            The pool which runs the tasks.
+	 */
+	public ParallelSolver(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see sudoku.SolverEngine#getName()
+	 */
+	@Override
+	public String getName() {
+		return "parallel";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see sudoku.SolverEngine#solve(java.lang.String)
+	 */
+	@Override
+	public String solve(String sudokustring) throws IllegalArgumentException {
+		Sudoku sudoku;
+		try {
+			sudoku = new Sudoku(sudokustring);
+		} catch (IllegalStateException e) {
+			return null;
+		}
+		Sudoku solution = solve(sudoku);
+		return solution == null ? null : solution.getSudokuString();
+	}
+
+	/**
+	 * Searches a solution of the current state of the given sudoku, which is
+	 * left unchanged.
+	 *
+	 * @param sudoku
+	 *            The sudoku to solve.
+	 * @return a solved copy of the sudoku, or null when there is no solution.
+	 */
+	public Sudoku solve(Sudoku sudoku) {
+		AtomicBoolean stop = new AtomicBoolean(false);
+		AtomicReference<Sudoku> solution = new AtomicReference<Sudoku>();
+		Sudoku copy = new Sudoku(sudoku);
+		// Without propagation the leaves search 16x16 sudokus far too long.
+		copy.setPropagation(true);
+		pool.invoke(new SearchTask(copy, 0, stop, solution));
+		if (solution.get() != null)
+			solution.get().setPropagation(sudoku.isPropagating());
+		return solution.get();
+	}
+
+	/**
+	 * Counts the solutions sequentially with
+	 * {@link Sudoku#countSolutions(int)}.
+	 *
+	 * @see sudoku.SolverEngine#countSolutions(java.lang.String, int)
+	 */
+	@Override
+	public int countSolutions(String sudokustring, int limit)
+			throws IllegalArgumentException {
+		try {
+			return new Sudoku(sudokustring).countSolutions(limit);
+		} catch (IllegalStateException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Fills in one cell of the solution of the current state, which is only
+	 * solved on the first step, and looks for a further solution once the
+	 * sudoku is solved.
+	 *
+	 * @see sudoku.SolverEngine#doStep(sudoku.Sudoku)
+	 */
+	@Override
+	public boolean doStep(Sudoku sudoku) throws IllegalStateException {
+		return sudoku.fillStep(this);
+	}
+
+	/**
+	 * A task which searches the subtree below the state of its own copy of the
+	 * sudoku.
+	 */
+	private static class SearchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		// The copy of the sudoku owned by this task.
+		private final Sudoku sudoku;
+		// The number of branch points above this task.
+		private final int depth;
+		// The flag which is set when a solution has been found.
+		private final AtomicBoolean stop;
+		// The solution which was found.
+		private final AtomicReference<Sudoku> solution;
+
+		/**
+		 * Creates a new task for the given state.
+		 */
+		SearchTask(Sudoku sudoku, int depth, AtomicBoolean stop,
+				AtomicReference<Sudoku> solution) {
+			this.sudoku = sudoku;
+			this.depth = depth;
+			this.stop = stop;
+			this.solution = solution;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			if (stop.get())
+				return;
+			if (depth >= SPLIT_DEPTH) {
+				if (sudoku.findSolution(stop) && solution.compareAndSet(null, sudoku))
+					stop.set(true);
+				return;
+			}
+
+			// Fill in forced cells until the next branch point.
+			int element = sudoku.findBranchCell();
+			int mask = element == -1 ? 0 : sudoku.getCandidates(element);
+			while (element != -1 && Integer.bitCount(mask) == 1) {
+				sudoku.place(element, Integer.numberOfTrailingZeros(mask) + 1);
+				element = sudoku.findBranchCell();
+				mask = element == -1 ? 0 : sudoku.getCandidates(element);
+			}
+			if (element == -1) {
+				if (solution.compareAndSet(null, sudoku))
+					stop.set(true);
+				return;
+			}
+
+			ArrayList<SearchTask> tasks = new ArrayList<SearchTask>();
+			for (; mask != 0; mask &= mask - 1) {
+				Sudoku copy = new Sudoku(sudoku);
+				copy.place(element, Integer.numberOfTrailingZeros(mask) + 1);
+				tasks.add(new SearchTask(copy, depth + 1, stop, solution));
+			}
+			invokeAll(tasks);
+		}
+	}
+}
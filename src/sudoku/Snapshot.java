@@ -0,0 +1,57 @@
+package sudoku;
+
+/**
+ * The state of a {@link Sudoku} at a given moment, including its solving
+ * process and statistics but not its listeners, see
+ * {@link Sudoku#snapshot()} and {@link Sudoku#restore(Snapshot)}.
+ *
+ * The primitive state is packed into a single array, so that taking and
+ * restoring a snapshot comes down to a few bulk copies.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public final class Snapshot {
+	// The geometry of the sudoku.
+	final Layout layout;
+	// The numbers, candidates, trail starts, stacks, unit masks, assigned
+	// cells and trail, in this order.
+	final int[] state;
+	// Array indicating a value is from the original problem.
+	final boolean[] original;
+	// The number of set numbers.
+	final int set;
+	// The number of elements on the trail.
+	final int trailLength;
+	// Index on the stack.
+	final int index;
+	// Whether backtracking is required.
+	final boolean backtrack;
+	// The counters of the solving process.
+	final SolverStatistics statistics;
+
+	/**
+	 * Creates a new snapshot.
+	 */
+	Snapshot(Layout layout, int[] state, boolean[] original, int set,
+			int trailLength, int index, boolean backtrack,
+			SolverStatistics statistics) {
+		this.layout = layout;
+		this.state = state;
+		this.original = original;
+		this.set = set;
+		this.trailLength = trailLength;
+		this.index = index;
+		this.backtrack = backtrack;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Returns the geometry of the sudoku of the snapshot.
+	 *
+	 * @return the layout.
+	 */
+	public Layout getLayout() {
+		return layout;
+	}
+}
@@ -0,0 +1,98 @@
+package sudoku;
+
+/**
+ * The outcome of an asynchronous solve by the {@link AsyncSolver}: how the
+ * search ended, the solution when one was found and the statistics of the
+ * search up to that moment.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public final class Solution {
+	/**
+	 * The ways in which a search can end.
+	 */
+	public enum Status {
+		// A solution was found.
+		SOLVED,
+		// The sudoku has no solution.
+		UNSOLVABLE,
+		// The search was stopped before it finished.
+		CANCELLED,
+		// The search did not finish before its deadline.
+		TIMED_OUT
+	}
+
+	// How the search ended.
+	private final Status status;
+	// The solution, or null when none was found.
+	private final String solution;
+	// The statistics of the search.
+	private final SolverStatistics statistics;
+
+	/**
+	 * Creates a new outcome.
+	 *
+	 * @param status
+	 *            How the search ended.
+	 * @param solution
+	 *            The solution as a string with a character per cell, or null
+	 *            when none was found.
+	 * @param statistics
+	 *            The statistics of the search.
+	 */
+	Solution(Status status, String solution, SolverStatistics statistics) {
+		this.status = status;
+		this.solution = solution;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Returns how the search ended.
+	 *
+	 * @return the status of the search.
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns whether a solution was found.
+	 *
+	 * @return whether the sudoku was solved.
+	 */
+	public boolean isSolved() {
+		return status == Status.SOLVED;
+	}
+
+	/**
+	 * Returns the solution.
+	 *
+	 * @return the solution as a string with a character per cell, or null
+	 *         when none was found.
+	 */
+	public String getSolution() {
+		return solution;
+	}
+
+	/**
+	 * Returns the statistics of the search, which are partial when the search
+	 * was cancelled or timed out.
+	 *
+	 * @return the statistics.
+	 */
+	public SolverStatistics getStatistics() {
+		return statistics;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return status + (solution == null ? "" : " " + solution) + " "
+				+ statistics;
+	}
+}
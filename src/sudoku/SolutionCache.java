@@ -0,0 +1,180 @@
+package sudoku;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The engine which remembers the solutions of the most recently solved
+ * regular sudokus by their canonical form, see {@link Canonicalizer}.
+ *
+ * A sudoku which is a relabelled, transposed or permuted copy of a sudoku in
+ * the cache is not searched again: the cached solution is mapped back to its
+ * orientation instead. Sudokus of other sizes, sudokus with too few clues to
+ * have a unique solution and sudokus with a digit twice in a row or column are
+ * passed on to the underlying engine. The cache may be shared between
+ * threads.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public class SolutionCache implements SolverEngine {
+	// The fewest clues of a sudoku with a unique solution.
+	private static final int MINIMUM_CLUES = 17;
+	// The value cached for a sudoku without a solution.
+	private static final Grid NO_SOLUTION = Grid.of(new Sudoku());
+	// The engine which solves the sudokus which are not cached.
+	private final SolverEngine engine;
+	// The solutions in canonical orientation by canonical form, in the order
+	// in which they were last used, packed to keep the cache small.
+	private final LinkedHashMap<Grid, Grid> solutions;
+	// The number of sudokus which were found in the cache.
+	private long hits = 0;
+	// The number of sudokus which were not found in the cache.
+	private long misses = 0;
+
+	/**
+	 * Creates a new cache in front of the given engine.
+	 *
+	 * @param engine
+	 *            The engine which solves the sudokus which are not cached.
+	 * @param capacity
+	 *            The number of solutions which are remembered.
+	 * @throws IllegalArgumentException
+	 *             When the capacity is smaller than 1.
+	 */
+	public SolutionCache(SolverEngine engine, final int capacity)
+			throws IllegalArgumentException {
+		if (capacity < 1)
+			throw new IllegalArgumentException(
+					"the capacity must be at least 1!");
+		this.engine = engine;
+		this.solutions = new LinkedHashMap<Grid, Grid>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Grid, Grid> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see sudoku.SolverEngine#getName()
+	 */
+	@Override
+	public String getName() {
+		return "cached";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see sudoku.SolverEngine#solve(java.lang.String)
+	 */
+	@Override
+	public String solve(String sudokustring) throws IllegalArgumentException {
+		if (Layout.forString(sudokustring).getSize() != 9
+				|| countClues(sudokustring) < MINIMUM_CLUES)
+			return engine.solve(sudokustring);
+
+		CanonicalForm form;
+		try {
+			form = Canonicalizer.canonicalize(sudokustring);
+		} catch (IllegalArgumentException e) {
+			// Sudokus with a digit twice in a row or column have no canonical
+			// form, the engine reports them.
+			return engine.solve(sudokustring);
+		}
+		Grid key = Grid.of(form.getForm());
+		Grid solution;
+		synchronized (solutions) {
+			solution = solutions.get(key);
+			if (solution != null)
+				hits++;
+			else
+				misses++;
+		}
+		if (solution == null) {
+			String solved = engine.solve(form.getForm());
+			solution = solved == null ? NO_SOLUTION : Grid.of(solved);
+			synchronized (solutions) {
+				solutions.put(key, solution);
+			}
+		}
+		return solution == NO_SOLUTION ? null : form.toOriginal(solution
+				.toString());
+	}
+
+	/**
+	 * Counts the solutions with the underlying engine.
+	 *
+	 * @see sudoku.SolverEngine#countSolutions(java.lang.String, int)
+	 */
+	@Override
+	public int countSolutions(String sudokustring, int limit)
+			throws IllegalArgumentException {
+		return engine.countSolutions(sudokustring, limit);
+	}
+
+	/**
+	 * Does a step with the underlying engine.
+	 *
+	 * @see sudoku.SolverEngine#doStep(sudoku.Sudoku)
+	 */
+	@Override
+	public boolean doStep(Sudoku sudoku) throws IllegalStateException {
+		return engine.doStep(sudoku);
+	}
+
+	/**
+	 * Returns the number of sudokus which were found in the cache.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public long getHits() {
+		synchronized (solutions) {
+			return hits;
+		}
+	}
+
+	/**
+	 * Returns the number of sudokus which were not found in the cache.
+	 *
+	 * @return the number of cache misses.
+	 */
+	public long getMisses() {
+		synchronized (solutions) {
+			return misses;
+		}
+	}
+
+	/**
+	 * Removes every solution from the cache.
+	 */
+	public void clear() {
+		synchronized (solutions) {
+			solutions.clear();
+			hits = 0;
+			misses = 0;
+		}
+	}
+
+	/**
+	 * Returns the number of clues of the given sudoku.
+	 *
+	 * @param sudokustring
+	 *            The sudoku as a string of 81 digits.
+	 * @return the number of cells which are not empty.
+	 */
+	private static int countClues(String sudokustring) {
+		int clues = 0;
+		for (int cell = 0; cell < 81; cell++) {
+			char c = sudokustring.charAt(cell);
+			if (c != '0' && c != '.')
+				clues++;
+		}
+		return clues;
+	}
+}
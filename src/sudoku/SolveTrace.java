@@ -0,0 +1,177 @@
+package sudoku;
+
+import java.util.Arrays;
+
+import swtgui.ChangeListener;
+
+/**
+ * A recording of the changes of a sudoku while it is solved, so that the
+ * solving process can be replayed at any speed, forwards and backwards,
+ * without solving again.
+ *
+ * The trace listens to the sudoku like any other listener and packs every
+ * change into a single int: the cell in the upper bits and the previous and
+ * the next value in 5 bits each. Together with the grid at the start of the
+ * recording, the state after any number of changes follows by applying the
+ * next values from the start, and stepping back applies the previous values.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public final class SolveTrace implements ChangeListener {
+	// The number of bits of a value in a change.
+	private static final int VALUE_BITS = 5;
+	// The mask of a value in a change.
+	private static final int VALUE_MASK = (1 << VALUE_BITS) - 1;
+	// The number of changes for which room is made at first.
+	private static final int INITIAL_CAPACITY = 1024;
+	// The values of the sudoku when the recording started.
+	private final Grid start;
+	// The number of rows and columns of the sudoku.
+	private final int size;
+	// The number of changes after which the trace is full.
+	private final int limit;
+	// The packed changes.
+	private int[] changes = new int[INITIAL_CAPACITY];
+	// The number of changes.
+	private int length = 0;
+	// Whether a solution was found during the recording.
+	private boolean solved = false;
+	// Whether the search ran out of solutions during the recording.
+	private boolean exhausted = false;
+
+	/**
+	 * Creates a new trace which starts at the current values of the given
+	 * sudoku. The trace only records once it is added as a listener of the
+	 * sudoku.
+	 *
+	 * @param sudoku
+	 *            The sudoku to record.
+	 * @param limit
+	 *            The number of changes after which the trace is full.
+	 * @throws IllegalArgumentException
+	 *             When the limit is not positive.
+	 */
+	public SolveTrace(Sudoku sudoku, int limit) throws IllegalArgumentException {
+		if (limit <= 0)
+			throw new IllegalArgumentException("The limit must be positive!");
+		this.start = Grid.of(sudoku);
+		this.size = sudoku.getSize();
+		this.limit = limit;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see swtgui.ChangeListener#changed(int, int, int, int)
+	 */
+	@Override
+	public void changed(int row, int column, int previous, int next) {
+		// A full trace keeps the changes of the current step, so that it
+		// still ends at the current state of the sudoku.
+		if (length == changes.length)
+			changes = Arrays.copyOf(changes, length * 2);
+		changes[length++] = (row * size + column) << (2 * VALUE_BITS)
+				| previous << VALUE_BITS | next;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see swtgui.ChangeListener#solved()
+	 */
+	@Override
+	public void solved() {
+		solved = true;
+	}
+
+	/**
+	 * Returns the values of the sudoku when the recording started.
+	 *
+	 * @return the grid at the start.
+	 */
+	public Grid getStart() {
+		return start;
+	}
+
+	/**
+	 * Returns the number of recorded changes.
+	 *
+	 * @return the number of changes.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the cell of the given change.
+	 *
+	 * @param index
+	 *            The index of the change.
+	 * @return the index of the cell (row * size + column).
+	 */
+	public int getCell(int index) {
+		return changes[index] >>> (2 * VALUE_BITS);
+	}
+
+	/**
+	 * Returns the value of the cell before the given change.
+	 *
+	 * @param index
+	 *            The index of the change.
+	 * @return the previous value, 0 when the cell was empty.
+	 */
+	public int getPrevious(int index) {
+		return (changes[index] >>> VALUE_BITS) & VALUE_MASK;
+	}
+
+	/**
+	 * Returns the value of the cell after the given change.
+	 *
+	 * @param index
+	 *            The index of the change.
+	 * @return the next value, 0 when the cell was emptied.
+	 */
+	public int getNext(int index) {
+		return changes[index] & VALUE_MASK;
+	}
+
+	/**
+	 * Returns whether a solution was found during the recording, which is the
+	 * state after the last change.
+	 *
+	 * @return whether a solution was found.
+	 */
+	public boolean isSolved() {
+		return solved;
+	}
+
+	/**
+	 * Marks that the search ran out of solutions during the recording, so
+	 * that the state after the last change is the end of the search.
+	 */
+	public void exhausted() {
+		exhausted = true;
+	}
+
+	/**
+	 * Returns whether the search ran out of solutions during the recording.
+	 * A trace which is neither solved nor exhausted was stopped early and can
+	 * be recorded further.
+	 *
+	 * @return whether the search was exhausted.
+	 */
+	public boolean isExhausted() {
+		return exhausted;
+	}
+
+	/**
+	 * Returns whether the trace holds at least the limit of changes, after
+	 * which the recording should stop.
+	 *
+	 * @return whether the trace is full.
+	 */
+	public boolean isFull() {
+		return length >= limit;
+	}
+}
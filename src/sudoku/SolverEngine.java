@@ -0,0 +1,59 @@
+package sudoku;
+
+/**
+ * An algorithm which can solve sudokus.
+ * 
+ * Every engine can solve a sudoku string at once, count its solutions and
+ * solve a {@link Sudoku} step by step so the process can be shown.
+ * 
+ * @author Niels
+ * @version 0.1
+ */
+public interface SolverEngine {
+	/**
+	 * Returns the name by which the engine can be selected.
+	 * 
+	 * @return the name of the engine.
+	 */
+	public String getName();
+
+	/**
+	 * Solves the given sudoku.
+	 * 
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell, where 0 is
+	 *            an empty cell, see {@link Sudoku#getSudokuString()}.
+	 * @return the solution as a string with a character per cell, or null
+	 *         when the sudoku has no solution.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 */
+	public String solve(String sudokustring) throws IllegalArgumentException;
+
+	/**
+	 * Counts the solutions of the given sudoku, stopping as soon as the given
+	 * limit is reached.
+	 * 
+	 * @param sudokustring
+	 *            The sudoku as a string with a character per cell, where 0 is
+	 *            an empty cell.
+	 * @param limit
+	 *            The number of solutions after which to stop counting.
+	 * @return the number of solutions, at most limit.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 */
+	public int countSolutions(String sudokustring, int limit)
+			throws IllegalArgumentException;
+
+	/**
+	 * Does one iteration in solving the given sudoku.
+	 * 
+	 * @param sudoku
+	 *            The sudoku to solve.
+	 * @return whether the sudoku holds a valid solution after the step.
+	 * @throws IllegalStateException
+	 *             When no (further) solution exists.
+	 */
+	public boolean doStep(Sudoku sudoku) throws IllegalStateException;
+}
@@ -0,0 +1,77 @@
+package sudoku;
+
+import java.util.ArrayList;
+
+/**
+ * Class for selecting solver engines by name.
+ * 
+ * @author Niels
+ * @version 0.1
+ */
+public class SolverEngines {
+	// The singleton instance of the engine registry.
+	private static SolverEngines instance;
+
+	// The list with available engines, the first one is the default.
+	private ArrayList<SolverEngine> engines = new ArrayList<SolverEngine>();
+
+	/**
+	 * Singleton constructor.
+	 */
+	private SolverEngines() {
+		engines.add(new BacktrackingEngine(false));
+		engines.add(new BacktrackingEngine(true));
+		engines.add(new DancingLinksEngine());
+		engines.add(new ParallelSolver());
+		engines.add(new SolutionCache(new DancingLinksEngine(), 4096));
+	}
+
+	/**
+	 * A singleton instance for the engine registry.
+	 * 
+	 * @return a singleton instance for the engine registry.
+	 */
+	public static synchronized SolverEngines getInstance() {
+		if (instance == null)
+			instance = new SolverEngines();
+		return instance;
+	}
+
+	/**
+	 * Returns the names of all the available engines.
+	 * 
+	 * @return the names of all the available engines.
+	 */
+	public String[] getEngineNames() {
+		String[] result = new String[engines.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = engines.get(i).getName();
+		return result;
+	}
+
+	/**
+	 * Returns the default engine.
+	 * 
+	 * @return the default engine.
+	 */
+	public SolverEngine getDefaultEngine() {
+		return engines.get(0);
+	}
+
+	/**
+	 * Returns the engine with the given name.
+	 * 
+	 * @param name
+	 *            The name of the engine.
+	 * @return the engine with the given name.
+	 * @throws IllegalArgumentException
+	 *             When no engine has the given name.
+	 */
+	public SolverEngine getEngine(String name) throws IllegalArgumentException {
+		for (SolverEngine engine : engines)
+			if (engine.getName().equals(name))
+				return engine;
+		throw new IllegalArgumentException("Unknown solver engine '" + name
+				+ "'!");
+	}
+}
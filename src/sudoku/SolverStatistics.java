@@ -0,0 +1,117 @@
+package sudoku;
+
+/**
+ * The counters of the solving process of a sudoku at a given moment.
+ * 
+ * @author Niels
+ * @version 0.1
+ */
+public final class SolverStatistics {
+	// The number of guesses.
+	private final long nodes;
+	// The number of guesses which were undone.
+	private final long backtracks;
+	// The number of cells filled in by propagation.
+	private final long propagations;
+	// The number of candidates eliminated by assignments.
+	private final long eliminations;
+	// The maximum number of guesses on the stack.
+	private final int maxDepth;
+	// The time spent in solveCompletely and countSolutions in nanoseconds.
+	private final long time;
+
+	/**
+	 * Creates new statistics with the given counters.
+	 * 
+	 * @param nodes
+	 *            The number of guesses.
+	 * @param backtracks
+	 *            The number of guesses which were undone.
+	 * @param propagations
+	 *            The number of cells filled in by propagation.
+	 * @param eliminations
+	 *            The number of candidates eliminated by assignments.
+	 * @param maxDepth
+	 *            The maximum number of guesses on the stack.
+	 * @param time
+	 *            The time spent solving in nanoseconds.
+	 */
+	public SolverStatistics(long nodes, long backtracks, long propagations,
+			long eliminations, int maxDepth, long time) {
+		this.nodes = nodes;
+		this.backtracks = backtracks;
+		this.propagations = propagations;
+		this.eliminations = eliminations;
+		this.maxDepth = maxDepth;
+		this.time = time;
+	}
+
+	/**
+	 * Returns the number of guesses, which is the number of visited nodes in
+	 * the search tree.
+	 * 
+	 * @return the number of guesses.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Returns the number of guesses which were undone.
+	 * 
+	 * @return the number of backtracks.
+	 */
+	public long getBacktracks() {
+		return backtracks;
+	}
+
+	/**
+	 * Returns the number of cells filled in by propagating singles.
+	 * 
+	 * @return the number of propagations.
+	 */
+	public long getPropagations() {
+		return propagations;
+	}
+
+	/**
+	 * Returns the number of candidates eliminated from the peers of assigned
+	 * cells.
+	 * 
+	 * @return the number of eliminations.
+	 */
+	public long getEliminations() {
+		return eliminations;
+	}
+
+	/**
+	 * Returns the maximum number of guesses on the stack at the same time.
+	 * 
+	 * @return the maximum depth of the search.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Returns the wall time spent in solveCompletely and countSolutions.
+	 * 
+	 * @return the time in nanoseconds.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "nodes=" + nodes + " backtracks=" + backtracks
+				+ " propagations=" + propagations + " eliminations="
+				+ eliminations + " maxDepth=" + maxDepth + " time="
+				+ (time / 1000) + "us";
+	}
+}
@@ -2,11 +2,13 @@ package sudoku;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import swtgui.ChangeListener;
 
 /**
- * Represents a regular sudoku.
+ * Represents a sudoku with square subgrids, such as a regular 9x9 sudoku or
+ * a 16x16 or 25x25 sudoku.
  * 
  * It also provides a method of solving the sudoku.
  * 
@@ -14,27 +16,100 @@ import swtgui.ChangeListener;
  * @version 0.1
  */
 public class Sudoku {
+	// The geometry of the sudoku.
+	private final Layout layout;
+	// The number of rows, columns and values.
+	private final int size;
+	// The number of cells.
+	private final int cells;
+	// Mask in which every value is set.
+	private final int all;
+	// The row of each cell.
+	private final int[] rowOf;
+	// The column of each cell.
+	private final int[] columnOf;
+	// The subgrid of each cell.
+	private final int[] boxOf;
+	// The cells sharing a row, column or subgrid with each cell.
+	private final int[][] peers;
+	// The cells of the rows, columns and subgrids.
+	private final int[][] units;
+
 	// Array indicating a value is from the original problem
-	private final boolean[][] original = new boolean[9][9];
+	private final boolean[] original;
 	// The array with numbers of the sudoku
-	private final int[][] numbers = new int[9][9];
-	// Array which indicates whether a value is possible.
-	private final boolean[][][] possible = new boolean[9][9][9];
+	private final int[] numbers;
+	// The possible values of each empty cell as a mask.
+	private final int[] candidates;
+	// The values used in each row as a mask.
+	private final int[] rows;
+	// The values used in each column as a mask.
+	private final int[] columns;
+	// The values used in each subgrid as a mask.
+	private final int[] boxes;
 	// The number of set numbers
 	private int set = 0;
+	// The assigned cells in the order in which they were assigned.
+	private final int[] assigned;
+	// The position on the trail where the eliminations of each cell start.
+	private final int[] trailStart;
+	// The cells from which a candidate was eliminated, per assignment.
+	private final int[] trail;
+	// The number of elements on the trail.
+	private int trailLength = 0;
 	// List with listeners
-	public ArrayList<ChangeListener> listeners = new ArrayList<ChangeListener>();
+	private final ArrayList<ChangeListener> listeners = new ArrayList<ChangeListener>();
+	// The values of the numbers as last reported to the listeners.
+	private final int[] reported;
+	// The cells which changed since the listeners were last notified.
+	private final int[] changed;
+	// Whether a cell is in the list of changed cells.
+	private final boolean[] pending;
+	// The number of changed cells.
+	private int changedCount = 0;
+	// The number of steps between two notifications of the listeners.
+	private int notificationInterval = 1;
+	// The number of steps since the listeners were last notified.
+	private int steps = 0;
 	// Index on the stack.
 	private int index = 0;
 	// Whether backtracking is required.
 	private boolean backtrack = false;
 	// The stack which contains the indices of the numbers
-	private final int[] stackIndex = new int[81];
+	private final int[] stackIndex;
 	// The stack which contains the index of possible values.
-	private final int[] stackPossible = new int[81];
+	private final int[] stackPossible;
+	// The stack which contains the number of set numbers before each guess.
+	private final int[] stackAssigned;
+	// Whether singles are propagated after every guess.
+	private boolean propagation = false;
+	// The number of guesses.
+	private long nodes = 0;
+	// The number of guesses which were undone.
+	private long backtracks = 0;
+	// The number of cells filled in by propagation.
+	private long propagations = 0;
+	// The number of candidates eliminated by assignments.
+	private long eliminations = 0;
+	// The maximum number of guesses on the stack.
+	private int maxDepth = 0;
+	// The time spent in solveCompletely and countSolutions in nanoseconds.
+	private long time = 0;
+	// Whether the last search of findSolution(AtomicBoolean) gave up because
+	// its flag was set.
+	private boolean gaveUp = false;
+	// The solution which fillStep() fills in one cell per step, or null when
+	// it still has to be found.
+	private int[] target;
+	// The solutions which were filled in by fillStep() since the sudoku was
+	// read, cleared or reset.
+	private final ArrayList<Grid> filled = new ArrayList<Grid>();
 
 	/**
-	 * Creates a new sudoku from the given string.
+	 * Creates a new sudoku from the given string. The size of the sudoku
+	 * follows from the length of the string, see
+	 * {@link Layout#forString(String)}, and values above 9 are written as the
+	 * letters A to P.
 	 * 
 	 * @param sudokustring
 	 *            The string to create the sudoku from.
@@ -45,83 +120,294 @@ public class Sudoku {
 	 */
 	public Sudoku(String sudokustring) throws NullPointerException,
 			IllegalArgumentException {
-		// Perform input validation.
-		if (sudokustring == null)
-			throw new NullPointerException("the given sudokustring is null!");
-		if (sudokustring.length() < 81)
-			throw new IllegalArgumentException(
-					"the sudokustring must be at least 81 characters long!");
-		// Set every value to be possible.
-		for (int i = 0; i < 9; i++)
-			for (int k = 0; k < 9; k++)
-				Arrays.fill(possible[i][k], true);
+		this(Layout.forString(sudokustring));
+		read(sudokustring);
+	}
+
+	/**
+	 * Clears the sudoku and reads the values from the given string, so that
+	 * the arrays of the sudoku are reused for another puzzle of the same size.
+	 * 
+	 * @param sudokustring
+	 *            The string to read the sudoku from.
+	 * @throws IllegalArgumentException
+	 *             When the string contains a illegal sudoku.
+	 * @throws IllegalStateException
+	 *             When two values of the string contradict each other.
+	 */
+	void read(String sudokustring) throws IllegalArgumentException,
+			IllegalStateException {
+		if (sudokustring.length() < cells)
+			throw new IllegalArgumentException("the sudokustring must be at least "
+					+ cells + " characters long!");
+		clear();
 		// Read the sudoku from a given string.
-		for (int i = 0; i < 9; i++) {
-			for (int k = 0; k < 9; k++) {
+		for (int i = 0; i < size; i++) {
+			for (int k = 0; k < size; k++) {
 				// Read the correct character
-				String c = sudokustring.substring(i * 9 + k, i * 9 + k + 1);
-
-				// Parse the integer from the string
-				int value = Integer.parseInt(c);
+				char c = sudokustring.charAt(i * size + k);
+				int value = Layout.toValue(c);
+				if (value < 0 || value > size)
+					throw new IllegalArgumentException("Invalid character '"
+							+ c + "' at position " + (i * size + k) + "!");
 
 				// Set the value
 				setValue(i, k, value, value > 0);
 			}
 		}
-		// Initialize the variables to solve the sudoku.
-		Arrays.fill(stackPossible, 0);
-		Arrays.fill(stackIndex, -1);
+		resetStatistics();
 	}
 
 	/**
-	 * Creates a new empty sudoku.
+	 * Creates a new empty sudoku with subgrids of the given size.
+	 * 
+	 * @param boxSize
+	 *            The number of rows and columns of a subgrid, 3 for a regular
+	 *            sudoku.
+	 * @throws IllegalArgumentException
+	 *             When the size is not supported.
 	 */
-	public Sudoku() {
+	public Sudoku(int boxSize) throws IllegalArgumentException {
+		this(Layout.of(boxSize));
 		clear();
 	}
 
+	/**
+	 * Creates a new sudoku with the given layout, whose arrays still have to
+	 * be filled by clearing, reading or copying.
+	 * 
+	 * @param layout
+	 *            The geometry of the sudoku.
+	 */
+	private Sudoku(Layout layout) {
+		this.layout = layout;
+		size = layout.getSize();
+		cells = layout.getCells();
+		all = layout.getAll();
+		rowOf = layout.row;
+		columnOf = layout.column;
+		boxOf = layout.box;
+		peers = layout.peers;
+		units = layout.units;
+		original = new boolean[cells];
+		numbers = new int[cells];
+		candidates = new int[cells];
+		rows = new int[size];
+		columns = new int[size];
+		boxes = new int[size];
+		assigned = new int[cells];
+		trailStart = new int[cells];
+		trail = new int[cells * peers[0].length];
+		reported = new int[cells];
+		changed = new int[cells];
+		pending = new boolean[cells];
+		stackIndex = new int[cells];
+		stackPossible = new int[cells];
+		stackAssigned = new int[cells];
+	}
+
+	/**
+	 * Creates a copy of the given sudoku, including its solving process but
+	 * without its listeners.
+	 * 
+	 * @param sudoku
+	 *            The sudoku to copy.
+	 */
+	Sudoku(Sudoku sudoku) {
+		this(sudoku.layout);
+		System.arraycopy(sudoku.original, 0, original, 0, cells);
+		System.arraycopy(sudoku.numbers, 0, numbers, 0, cells);
+		System.arraycopy(sudoku.candidates, 0, candidates, 0, cells);
+		System.arraycopy(sudoku.rows, 0, rows, 0, size);
+		System.arraycopy(sudoku.columns, 0, columns, 0, size);
+		System.arraycopy(sudoku.boxes, 0, boxes, 0, size);
+		System.arraycopy(sudoku.assigned, 0, assigned, 0, sudoku.set);
+		System.arraycopy(sudoku.trailStart, 0, trailStart, 0, cells);
+		System.arraycopy(sudoku.trail, 0, trail, 0, sudoku.trailLength);
+		System.arraycopy(sudoku.stackIndex, 0, stackIndex, 0, cells);
+		System.arraycopy(sudoku.stackPossible, 0, stackPossible, 0, cells);
+		System.arraycopy(sudoku.stackAssigned, 0, stackAssigned, 0, cells);
+		set = sudoku.set;
+		trailLength = sudoku.trailLength;
+		index = sudoku.index;
+		backtrack = sudoku.backtrack;
+		propagation = sudoku.propagation;
+		notificationInterval = sudoku.notificationInterval;
+		nodes = sudoku.nodes;
+		backtracks = sudoku.backtracks;
+		propagations = sudoku.propagations;
+		eliminations = sudoku.eliminations;
+		maxDepth = sudoku.maxDepth;
+		time = sudoku.time;
+		target = sudoku.target;
+		filled.addAll(sudoku.filled);
+	}
+
+	/**
+	 * Creates a copy of this sudoku, including its solving process but
+	 * without its listeners.
+	 * 
+	 * @return the copy.
+	 */
+	@Override
+	public Sudoku clone() {
+		return new Sudoku(this);
+	}
+
+	/**
+	 * Takes a snapshot of the current state of the sudoku, including its
+	 * solving process and statistics but not its listeners.
+	 * 
+	 * @return the snapshot.
+	 */
+	public Snapshot snapshot() {
+		int[] state = new int[6 * cells + 3 * size + set + trailLength];
+		int offset = 0;
+		offset = pack(numbers, cells, state, offset);
+		offset = pack(candidates, cells, state, offset);
+		offset = pack(trailStart, cells, state, offset);
+		offset = pack(stackIndex, cells, state, offset);
+		offset = pack(stackPossible, cells, state, offset);
+		offset = pack(stackAssigned, cells, state, offset);
+		offset = pack(rows, size, state, offset);
+		offset = pack(columns, size, state, offset);
+		offset = pack(boxes, size, state, offset);
+		offset = pack(assigned, set, state, offset);
+		pack(trail, trailLength, state, offset);
+		return new Snapshot(layout, state, original.clone(), set, trailLength,
+				index, backtrack, getStatistics());
+	}
+
+	/**
+	 * Returns the sudoku to the state of the given snapshot. The listeners
+	 * are notified of the cells whose value changes.
+	 * 
+	 * @param snapshot
+	 *            The snapshot of this or another sudoku of the same size.
+	 * @throws IllegalArgumentException
+	 *             When the snapshot is of a sudoku of another size.
+	 */
+	public void restore(Snapshot snapshot) throws IllegalArgumentException {
+		if (snapshot.layout != layout)
+			throw new IllegalArgumentException(
+					"The snapshot is of a sudoku of another size!");
+		int[] state = snapshot.state;
+		if (!listeners.isEmpty())
+			for (int cell = 0; cell < cells; cell++)
+				if (numbers[cell] != state[cell] && !pending[cell]) {
+					pending[cell] = true;
+					changed[changedCount++] = cell;
+				}
+		set = snapshot.set;
+		trailLength = snapshot.trailLength;
+		int offset = 0;
+		offset = unpack(state, offset, numbers, cells);
+		offset = unpack(state, offset, candidates, cells);
+		offset = unpack(state, offset, trailStart, cells);
+		offset = unpack(state, offset, stackIndex, cells);
+		offset = unpack(state, offset, stackPossible, cells);
+		offset = unpack(state, offset, stackAssigned, cells);
+		offset = unpack(state, offset, rows, size);
+		offset = unpack(state, offset, columns, size);
+		offset = unpack(state, offset, boxes, size);
+		offset = unpack(state, offset, assigned, set);
+		unpack(state, offset, trail, trailLength);
+		System.arraycopy(snapshot.original, 0, original, 0, cells);
+		index = snapshot.index;
+		backtrack = snapshot.backtrack;
+		SolverStatistics statistics = snapshot.statistics;
+		nodes = statistics.getNodes();
+		backtracks = statistics.getBacktracks();
+		propagations = statistics.getPropagations();
+		eliminations = statistics.getEliminations();
+		maxDepth = statistics.getMaxDepth();
+		time = statistics.getTime();
+		target = null;
+		flushChanges();
+	}
+
+	/**
+	 * Copies the first length elements of the source to the given offset of
+	 * the packed state.
+	 * 
+	 * @return the offset after the copied elements.
+	 */
+	private static int pack(int[] source, int length, int[] state, int offset) {
+		System.arraycopy(source, 0, state, offset, length);
+		return offset + length;
+	}
+
+	/**
+	 * Copies length elements from the given offset of the packed state to the
+	 * start of the destination.
+	 * 
+	 * @return the offset after the copied elements.
+	 */
+	private static int unpack(int[] state, int offset, int[] destination,
+			int length) {
+		System.arraycopy(state, offset, destination, 0, length);
+		return offset + length;
+	}
+
+	/**
+	 * Creates a new empty regular sudoku.
+	 */
+	public Sudoku() {
+		this(3);
+	}
+
 	/**
 	 * Clears the sudoku and execution process.
 	 */
 	public void clear() {
 		// Set every value to be possible.
-		for (int i = 0; i < 9; i++) {
-			Arrays.fill(numbers[i], 0);
-			for (int k = 0; k < 9; k++)
-				Arrays.fill(possible[i][k], true);
-		}
+		Arrays.fill(numbers, 0);
+		Arrays.fill(original, false);
+		Arrays.fill(candidates, all);
+		Arrays.fill(rows, 0);
+		Arrays.fill(columns, 0);
+		Arrays.fill(boxes, 0);
+		set = 0;
+		trailLength = 0;
 		// Initialize the variables to solve the sudoku.
 		Arrays.fill(stackPossible, 0);
 		Arrays.fill(stackIndex, -1);
 		index = 0;
+		backtrack = false;
+		target = null;
+		filled.clear();
+		resetStatistics();
 	}
 
 	/**
-	 * Resets the sudoku to it's start before execution.
+	 * Resets the sudoku to it's start before execution, which empties every
+	 * cell that is not an original value, whether it was filled in by the
+	 * search of {@link #doStep()} or by an engine.
 	 */
 	public void reset() {
-		for (int i = 0; i < stackIndex.length; i++) {
-			if (stackIndex[i] == -1)
-				break;
-
-			int x = stackIndex[i] / 9;
-			int y = stackIndex[i] % 9;
-			setValue(x, y, 0, false);
-		}
+		// From the most recent assignment, so that mostly only the trail is
+		// rolled back.
+		for (int i = set - 1; i >= 0; i--)
+			if (!original[assigned[i]])
+				change(assigned[i], 0, false);
+		target = null;
+		filled.clear();
+		flushChanges();
 		// Initialize the variables to solve the sudoku.
 		Arrays.fill(stackPossible, 0);
 		Arrays.fill(stackIndex, -1);
 		index = 0;
 		backtrack = false;
+		resetStatistics();
 	}
 
 	/**
 	 * Sets the value of the number at that given position.
 	 * 
 	 * @param row
-	 *            The row of the value to change (between 0 and 8)
+	 *            The row of the value to change (between 0 and size - 1)
 	 * @param column
-	 *            The column of the value to change (between 0 and 8)
+	 *            The column of the value to change (between 0 and size - 1)
 	 * @param value
 	 *            The value for the number at the position.
 	 * @param isOriginal
@@ -132,72 +418,193 @@ public class Sudoku {
 	 */
 	public void setValue(int row, int column, int value, boolean isOriginal)
 			throws IllegalStateException {
-		if (value > 0 && !possible[row][column][value - 1])
+		change(row * size + column, value, isOriginal);
+		target = null;
+		flushChanges();
+	}
+
+	/**
+	 * Sets the value of the given cell and records the change for the
+	 * listeners.
+	 * 
+	 * @param cell
+	 *            The index of the cell (row * size + column).
+	 * @param value
+	 *            The value for the number at the position.
+	 * @param isOriginal
+	 *            Boolean indicating whether the value at the given position is
+	 *            an original value.
+	 * @throws IllegalStateException
+	 *             When that number is not possible at the given position.
+	 */
+	private void change(int cell, int value, boolean isOriginal)
+			throws IllegalStateException {
+		if (value > 0 && numbers[cell] != value
+				&& (occupied(cell) & (1 << (value - 1))) != 0)
 			throw new IllegalStateException(
 					"That value is inconsistent with the sudoku!");
-		if (numbers[row][column] == value)
+		if (numbers[cell] == value)
 			return;
-		if (value == 0)
-			set--;
-		else if (numbers[row][column] == 0)
-			set++;
-		notifyChange(row, column, numbers[row][column], value);
-		numbers[row][column] = value;
-		original[row][column] = isOriginal;
+		original[cell] = isOriginal;
+		if (!listeners.isEmpty() && !pending[cell]) {
+			pending[cell] = true;
+			changed[changedCount++] = cell;
+		}
+		if (numbers[cell] > 0)
+			unassign(cell);
+		if (value > 0)
+			assign(cell, value);
+	}
 
-		if (value == 0)
-			update();
-		else {
-			numbers[row][column] = value;
-			int rr = (row / 3) * 3;
-			int cc = (column / 3) * 3;
-			for (int i = 0; i < 3; i++)
-				for (int k = 0; k < 3; k++)
-					possible[rr + i][cc + k][value - 1] = false;
-			for (int i = 0; i < 9; i++) {
-				// possible[row][column][i] = false;
-				possible[row][i][value - 1] = false;
-				possible[i][column][value - 1] = false;
+	/**
+	 * Puts the given value in the given empty cell and removes it from the
+	 * candidates of its peers.
+	 * 
+	 * @param cell
+	 *            The index of the cell (row * size + column).
+	 * @param value
+	 *            The value between 1 and size.
+	 */
+	private void assign(int cell, int value) {
+		int bit = 1 << (value - 1);
+		numbers[cell] = value;
+		rows[rowOf[cell]] |= bit;
+		columns[columnOf[cell]] |= bit;
+		boxes[boxOf[cell]] |= bit;
+		assigned[set++] = cell;
+		eliminate(cell, bit);
+		eliminations += trailLength - trailStart[cell];
+	}
+
+	/**
+	 * Removes the given candidate from the peers of the given cell and records
+	 * the affected peers on the trail.
+	 * 
+	 * @param cell
+	 *            The index of the cell (row * size + column).
+	 * @param bit
+	 *            The mask of the value to eliminate.
+	 */
+	private void eliminate(int cell, int bit) {
+		trailStart[cell] = trailLength;
+		for (int peer : peers[cell])
+			if ((candidates[peer] & bit) != 0) {
+				candidates[peer] &= ~bit;
+				trail[trailLength++] = peer;
 			}
+	}
+
+	/**
+	 * Empties the given cell. When the cell is the last assigned cell only the
+	 * eliminations on its part of the trail are rolled back, otherwise the
+	 * candidates are recomputed.
+	 * 
+	 * @param cell
+	 *            The index of the cell (row * size + column).
+	 */
+	private void unassign(int cell) {
+		int bit = 1 << (numbers[cell] - 1);
+		numbers[cell] = 0;
+		rows[rowOf[cell]] &= ~bit;
+		columns[columnOf[cell]] &= ~bit;
+		boxes[boxOf[cell]] &= ~bit;
+
+		if (assigned[set - 1] == cell) {
+			for (int i = trailStart[cell]; i < trailLength; i++)
+				candidates[trail[i]] |= bit;
+			trailLength = trailStart[cell];
+			set--;
+		} else {
+			int i = 0;
+			while (assigned[i] != cell)
+				i++;
+			System.arraycopy(assigned, i + 1, assigned, i, set - i - 1);
+			set--;
+			update();
 		}
 	}
 
+	/**
+	 * Empties the most recently assigned cells until only the given number of
+	 * numbers remains set.
+	 * 
+	 * @param mark
+	 *            The number of set numbers to return to.
+	 */
+	private void undo(int mark) {
+		while (set > mark) {
+			int cell = assigned[set - 1];
+			change(cell, 0, false);
+		}
+	}
+
+	/**
+	 * Returns the mask with the values used by the row, column and subgrid of
+	 * the given cell.
+	 * 
+	 * @param cell
+	 *            The index of the cell (row * size + column).
+	 * @return the mask with the values used by the peers of the cell.
+	 */
+	private int occupied(int cell) {
+		return rows[rowOf[cell]] | columns[columnOf[cell]] | boxes[boxOf[cell]];
+	}
+
 	/**
 	 * Solves the sudoku completely by trying any number combination and pruning
 	 * invalid results.
 	 */
 	public void solveCompletely() {
-		while (!doStep())
-			;
+		long startTime = System.nanoTime();
+		try {
+			while (!doStep())
+				;
+		} finally {
+			time += System.nanoTime() - startTime;
+		}
 	}
 
 	/**
-	 * Does one iteration in solving the sudoku.
+	 * Does one iteration in solving the sudoku. The listeners are notified of
+	 * the changes once every notification interval.
 	 */
 	public boolean doStep() throws IllegalStateException {
+		try {
+			return step();
+		} finally {
+			if (notificationInterval > 0 && ++steps >= notificationInterval)
+				flushChanges();
+		}
+	}
+
+	/**
+	 * Does one iteration in solving the sudoku, without notifying the
+	 * listeners of the changes.
+	 */
+	private boolean step() throws IllegalStateException {
 		if (backtrack || !canBeSolved()) {
 			if (--index < 0) // go to previous stack element
 				throw new IllegalStateException("No solution exists!");
 
 			int element = stackIndex[index]; // find the element
-			int x = element / 9; // find the x position
-			int y = element % 9; // find the y position
-			setValue(x, y, 0, false);
-			while (stackPossible[index] < 9
-					&& !possible[x][y][stackPossible[index]])
-				stackPossible[index]++;
-			if (stackPossible[index] == 9) {
+			undo(stackAssigned[index]);
+			backtracks++;
+			int remaining = candidates[element] & (all << stackPossible[index]);
+			if (remaining == 0) {
 				stackIndex[index] = -1;
 				stackPossible[index] = 0;
-				setValue(x, y, 0, false);
 				backtrack = true;
 				return false; // backtrack further
 			}
 
-			setValue(x, y, stackPossible[index] + 1, false);
-			stackPossible[index]++;
+			int value = Integer.numberOfTrailingZeros(remaining) + 1;
+			change(element, value, false);
+			stackPossible[index] = value;
 			index++;
-			backtrack = false;
+			nodes++;
+			if (index > maxDepth)
+				maxDepth = index;
+			backtrack = propagation && !propagate();
 		} else if (index >= 0) {
 			int element = findFirstInvalid();
 
@@ -206,192 +613,451 @@ public class Sudoku {
 				return false;
 			}
 
-			int x = element / 9; // find the x position
-			int y = element % 9; // find the y position
-			while (stackPossible[index] < 9
-					&& !possible[x][y][stackPossible[index]])
-				stackPossible[index]++;
-			if (stackPossible[index] == 9) {
+			int remaining = candidates[element] & (all << stackPossible[index]);
+			if (remaining == 0) {
 				backtrack = true;
 				return false;
 			}
+			int value = Integer.numberOfTrailingZeros(remaining) + 1;
 			stackIndex[index] = element; // put it up the stack.
-			setValue(x, y, stackPossible[index] + 1, false);
-			stackPossible[index]++;
+			stackAssigned[index] = set;
+			change(element, value, false);
+			stackPossible[index] = value;
 			index++;
+			nodes++;
+			if (index > maxDepth)
+				maxDepth = index;
+			backtrack = propagation && !propagate();
 		} else
 			throw new IllegalStateException("No solution exists!");
 		return isValidSolution();
 	}
 
 	/**
-	 * Returns the index of the first modifiable number.
+	 * Counts the solutions of the current state of the sudoku, stopping as
+	 * soon as the given limit is reached. The listeners are not notified and
+	 * the sudoku is left unchanged.
 	 * 
-	 * @return the index of the first modifiable number.
+	 * @param limit
+	 *            The number of solutions after which to stop counting.
+	 * @return the number of solutions, at most limit.
 	 */
-	private int findFirstInvalid() {
-		int minimum = 10;
-		int index = -1;
-		for (int i = 0; i < 9; i++)
-			for (int k = 0; k < 9; k++)
-				if (numbers[i][k] == 0) {
-					int count = 0;
-					for (int u = 0; u < 9; u++)
-						if (possible[i][k][u])
-							count++;
-					if (count == 1)
-						return i * 9 + k;
-					if (count > 0 && count < minimum) {
-						minimum = count;
-						index = i * 9 + k;
-					}
-				}
-		return index;
+	public int countSolutions(int limit) {
+		if (limit <= 0)
+			return 0;
+		long startTime = System.nanoTime();
+		int found = countSolutions(limit, 0, 0);
+		time += System.nanoTime() - startTime;
+		return found;
 	}
 
 	/**
-	 * Returns whether the sudoku can still be solved.
+	 * Returns whether the current state of the sudoku has exactly one
+	 * solution.
 	 * 
-	 * @return whether the sudoku can still be solved.
+	 * @return whether the sudoku has a unique solution.
 	 */
-	private boolean canBeSolved() {
-		if (set == 81)
-			return true;
-		for (int i = 0; i < 9; i++)
-			for (int k = 0, count = 0; k < 9; k++) {
-				if (numbers[i][k] > 0)
-					continue;
-				for (int u = 0; u < 9; u++)
-					if (possible[i][k][u])
-						count++;
-				if (count == 0)
+	public boolean hasUniqueSolution() {
+		return countSolutions(2) == 1;
+	}
+
+	/**
+	 * Searches a solution of the current state without notifying the
+	 * listeners. When a solution is found it is left in the sudoku, otherwise
+	 * the sudoku is left unchanged. When propagation is enabled, the singles
+	 * are filled in at every node of the search.
+	 * 
+	 * @param stop
+	 *            The flag which makes the search give up when it is set.
+	 * @return whether a solution was found.
+	 */
+	boolean findSolution(AtomicBoolean stop) {
+		long startTime = System.nanoTime();
+		gaveUp = false;
+		boolean found = findSolution(stop, 0);
+		time += System.nanoTime() - startTime;
+		return found;
+	}
+
+	/**
+	 * Returns whether the last search of {@link #findSolution(AtomicBoolean)}
+	 * gave up because its flag was set, rather than finding that there is no
+	 * solution. A flag which is set after the search has finished is not
+	 * seen.
+	 * 
+	 * @return whether the last search gave up.
+	 */
+	boolean hasGivenUp() {
+		return gaveUp;
+	}
+
+	/**
+	 * Does one step towards a solution which the given engine finds at once,
+	 * for the engines which do not search step by step. The first step finds
+	 * the solution, after which every step empties one cell which differs
+	 * from it or fills in one empty cell. Once the sudoku is solved, the next
+	 * step looks for a solution which was not filled in before. The values
+	 * are assigned like those of the search, so {@link #reset()} removes
+	 * them. The listeners are notified like with {@link #doStep()}.
+	 * 
+	 * @param engine
+	 *            The engine which finds the first solution.
+	 * @return whether the sudoku holds a valid solution after the step.
+	 * @throws IllegalStateException
+	 *             When no (further) solution exists.
+	 */
+	boolean fillStep(SolverEngine engine) throws IllegalStateException {
+		try {
+			if (target == null)
+				target = findTarget(engine);
+			for (int cell = 0; cell < cells; cell++)
+				if (numbers[cell] != 0 && numbers[cell] != target[cell]) {
+					change(cell, 0, false);
 					return false;
-			}
-		return true;
+				}
+			for (int cell = 0; cell < cells; cell++)
+				if (numbers[cell] == 0) {
+					change(cell, target[cell], false);
+					break;
+				}
+			if (set < cells)
+				return false;
+			filled.add(Grid.of(this));
+			target = null;
+			return isValidSolution();
+		} finally {
+			if (notificationInterval > 0 && ++steps >= notificationInterval)
+				flushChanges();
+		}
 	}
 
 	/**
-	 * Checks whether the current state of the sudoku is a valid solution. <br>
-	 * <br>
-	 * The solution is valid when each 3x3 subgrid only contains each number
-	 * between 1-9 once and each row and column only contains each number once.
+	 * Finds the solution which fillStep() fills in: the solution of the
+	 * current state by the given engine, or once the sudoku is complete, a
+	 * solution of the original values which was not filled in before.
 	 * 
-	 * @return whether the current state is a valid solution.
+	 * @param engine
+	 *            The engine which solves the current state.
+	 * @return the values of the solution.
+	 * @throws IllegalStateException
+	 *             When no (further) solution exists.
 	 */
-	public boolean isValidSolution() {
-		if (set < 81)
+	private int[] findTarget(SolverEngine engine) throws IllegalStateException {
+		Sudoku solution = new Sudoku(layout);
+		solution.clear();
+		if (set < cells) {
+			String solved = engine.solve(getSudokuString());
+			if (solved == null)
+				throw new IllegalStateException("No solution exists!");
+			solution.read(solved);
+		} else {
+			for (int cell = 0; cell < cells; cell++)
+				if (original[cell])
+					solution.assign(cell, numbers[cell]);
+			if (!solution.findOtherSolution(filled))
+				throw new IllegalStateException("No further solution exists!");
+		}
+		return solution.numbers.clone();
+	}
+
+	/**
+	 * Searches a solution which is not one of the given solutions, by trying
+	 * every candidate of the empty cell with the fewest candidates. When such
+	 * a solution is found it is left in the sudoku.
+	 * 
+	 * @param known
+	 *            The solutions to skip.
+	 * @return whether another solution was found.
+	 */
+	private boolean findOtherSolution(ArrayList<Grid> known) {
+		int element = findBranchCell();
+		if (element == -1)
+			return !known.contains(Grid.of(this));
+
+		for (int mask = candidates[element]; mask != 0; mask &= mask - 1) {
+			assign(element, Integer.numberOfTrailingZeros(mask) + 1);
+			if (findOtherSolution(known))
+				return true;
+			unassign(element);
+		}
+		return false;
+	}
+
+	/**
+	 * Searches a solution by trying every candidate of the empty cell with the
+	 * fewest candidates, after filling in the singles when propagation is
+	 * enabled.
+	 * 
+	 * @param stop
+	 *            The flag which makes the search give up when it is set.
+	 * @param depth
+	 *            The number of guesses made so far.
+	 * @return whether a solution was found.
+	 */
+	private boolean findSolution(AtomicBoolean stop, int depth) {
+		if (stop.get()) {
+			gaveUp = true;
 			return false;
-		// Check each 3x3 grid whether it contains each number once.
-		for (int i = 0; i < 3; i++)
-			for (int k = 0; k < 3; k++) {
-				boolean[] used = new boolean[9];
-				Arrays.fill(used, false);
-
-				for (int x = 0; x < 3; x++)
-					for (int y = 0; y < 3; y++)
-						used[numbers[i * 3 + x][k * 3 + y] - 1] = true;
-				for (int u = 0; u < 9; u++)
-					if (!used[u])
-						return false;
-			}
+		}
+		int mark = set;
+		if (propagation && !propagate()) {
+			undo(mark);
+			return false;
+		}
+		int element = findBranchCell();
+		if (element == -1)
+			return true;
 
-		// Check each row and column whether it contains each element once.
-		for (int i = 0; i < 9; i++) {
-			boolean[] usedRow = new boolean[9];
-			boolean[] usedColumn = new boolean[9];
+		if (depth >= maxDepth)
+			maxDepth = depth + 1;
+		for (int mask = candidates[element]; mask != 0; mask &= mask - 1) {
+			assign(element, Integer.numberOfTrailingZeros(mask) + 1);
+			nodes++;
+			if (findSolution(stop, depth + 1))
+				return true;
+			unassign(element);
+			backtracks++;
+		}
+		undo(mark);
+		return false;
+	}
 
-			for (int k = 0; k < 9; k++) {
-				usedRow[numbers[i][k] - 1] = true;
-				usedColumn[numbers[k][i] - 1] = true;
+	/**
+	 * Returns the index of the empty cell with the fewest candidates, which is
+	 * a cell without candidates when the sudoku cannot be solved anymore.
+	 * 
+	 * @return the index of the cell to branch on, or -1 when every cell is
+	 *         set.
+	 */
+	int findBranchCell() {
+		int element = -1;
+		int minimum = size + 1;
+		for (int cell = 0; cell < cells && minimum > 1; cell++)
+			if (numbers[cell] == 0) {
+				int count = Integer.bitCount(candidates[cell]);
+				if (count < minimum) {
+					minimum = count;
+					element = cell;
+				}
 			}
+		return element;
+	}
+
+	/**
+	 * Returns the possible values of the given empty cell as a mask.
+	 * 
+	 * @param cell
+	 *            The index of the cell (row * size + column).
+	 * @return the candidates of the cell.
+	 */
+	int getCandidates(int cell) {
+		return candidates[cell];
+	}
 
-			for (int u = 0; u < 9; u++)
-				if (!usedRow[u] || !usedColumn[u])
+	/**
+	 * Puts the given value in the given empty cell without notifying the
+	 * listeners.
+	 * 
+	 * @param cell
+	 *            The index of the cell (row * size + column).
+	 * @param value
+	 *            The value between 1 and size.
+	 */
+	void place(int cell, int value) {
+		assign(cell, value);
+	}
+
+	/**
+	 * Counts the solutions by trying every candidate of the empty cell with
+	 * the fewest candidates.
+	 * 
+	 * @param limit
+	 *            The number of solutions after which to stop counting.
+	 * @param found
+	 *            The number of solutions found so far.
+	 * @param depth
+	 *            The number of guesses made so far.
+	 * @return the number of solutions found so far, at most limit.
+	 */
+	private int countSolutions(int limit, int found, int depth) {
+		int element = findBranchCell();
+		if (element == -1)
+			return found + 1;
+
+		if (depth >= maxDepth)
+			maxDepth = depth + 1;
+		for (int mask = candidates[element]; mask != 0 && found < limit; mask &= mask - 1) {
+			assign(element, Integer.numberOfTrailingZeros(mask) + 1);
+			nodes++;
+			found = countSolutions(limit, found, depth + 1);
+			unassign(element);
+			backtracks++;
+		}
+		return found;
+	}
+
+	/**
+	 * Fills in naked singles and hidden singles until no more can be found.
+	 * The filled in numbers are undone together with the guess that caused
+	 * them.
+	 * 
+	 * @return false when a contradiction was found.
+	 */
+	private boolean propagate() {
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			// Naked singles: empty cells with a single candidate.
+			for (int cell = 0; cell < cells; cell++) {
+				if (numbers[cell] > 0)
+					continue;
+				int mask = candidates[cell];
+				if (mask == 0)
 					return false;
+				if ((mask & (mask - 1)) == 0) {
+					change(cell, Integer.numberOfTrailingZeros(mask) + 1, false);
+					propagations++;
+					changed = true;
+				}
+			}
+			// Hidden singles: values with a single place in a unit.
+			for (int[] unit : units) {
+				int once = 0, twice = 0, used = 0;
+				for (int cell : unit)
+					if (numbers[cell] > 0)
+						used |= 1 << (numbers[cell] - 1);
+					else {
+						twice |= once & candidates[cell];
+						once |= candidates[cell];
+					}
+				if ((once | used) != all)
+					return false;
+				for (int single = once & ~twice; single != 0; single &= single - 1) {
+					int bit = single & -single;
+					int cell = 0;
+					while ((candidates[unit[cell]] & bit) == 0
+							|| numbers[unit[cell]] > 0)
+						if (++cell == size)
+							return false;
+					change(unit[cell], Integer.numberOfTrailingZeros(bit) + 1,
+							false);
+					propagations++;
+					changed = true;
+				}
+			}
 		}
-		notifySolved();
 		return true;
 	}
 
 	/**
-	 * This method updates the possible values of the sudoku from scratch.
+	 * Sets whether naked and hidden singles are filled in after every guess
+	 * made by {@link #doStep()}.
+	 * 
+	 * @param propagation
+	 *            Whether singles should be propagated.
 	 */
-	private void update() {
-		// Clear the possible fields.
-		for (int i = 0; i < 9; ++i)
-			for (int k = 0; k < 9; ++k)
-				for (int u = 0; u < 9; u++)
-					possible[i][k][u] = numbers[i][k] == 0 ? true : false;
-		// Update each 3x3 subgrid
-		for (int i = 0; i < 3; i++)
-			for (int k = 0; k < 3; k++)
-				updateSquare(i * 3, k * 3);
-		for (int i = 0; i < 9; ++i)
-			updateRow(i);
-		for (int i = 0; i < 9; ++i)
-			updateColumn(i);
+	public void setPropagation(boolean propagation) {
+		this.propagation = propagation;
 	}
 
 	/**
-	 * This method updates the possible values for a single 3x3 grid.
+	 * Returns whether naked and hidden singles are filled in after every
+	 * guess.
 	 * 
-	 * @param xoffset
-	 *            The xoffset in the grid.
-	 * @param yoffset
-	 *            The yoffset in the grid.
+	 * @return whether singles are propagated.
 	 */
-	private void updateSquare(int xoffset, int yoffset) {
-		int[] usedValues = new int[10];
-		int index = 0;
-
-		for (int x = 0; x < 3; ++x)
-			for (int y = 0; y < 3; ++y)
-				if (numbers[xoffset + x][yoffset + y] > 0)
-					usedValues[index++] = numbers[xoffset + x][yoffset + y];
-		for (int x = 0; x < 3; ++x)
-			for (int y = 0; y < 3; ++y)
-				if (numbers[xoffset + x][yoffset + y] == 0)
-					for (int u = 0; u < index; u++)
-						possible[xoffset + x][yoffset + y][usedValues[u] - 1] = false;
+	public boolean isPropagating() {
+		return propagation;
 	}
 
 	/**
-	 * Updates the possible values per row.
+	 * Returns the statistics of the solving process since the sudoku was
+	 * created, cleared or reset.
 	 * 
-	 * @param row
-	 *            The row to update.
+	 * @return the statistics of the solving process.
 	 */
-	private void updateRow(int row) {
-		int[] usedValues = new int[10];
-		int index = 0;
+	public SolverStatistics getStatistics() {
+		return new SolverStatistics(nodes, backtracks, propagations,
+				eliminations, maxDepth, time);
+	}
 
-		for (int column = 0; column < 9; ++column)
-			if (numbers[row][column] > 0)
-				usedValues[index++] = numbers[row][column];
-		for (int column = 0; column < 9; ++column)
-			if (numbers[row][column] == 0)
-				for (int u = 0; u < index; u++)
-					possible[row][column][usedValues[u] - 1] = false;
+	/**
+	 * Sets all the counters of the solving process to zero.
+	 */
+	public void resetStatistics() {
+		nodes = 0;
+		backtracks = 0;
+		propagations = 0;
+		eliminations = 0;
+		maxDepth = 0;
+		time = 0;
+	}
 
+	/**
+	 * Returns the index of the empty cell with the fewest candidates.
+	 * 
+	 * @return the index of the empty cell with the fewest candidates.
+	 */
+	private int findFirstInvalid() {
+		int minimum = size + 1;
+		int index = -1;
+		for (int cell = 0; cell < cells; cell++)
+			if (numbers[cell] == 0) {
+				int count = Integer.bitCount(candidates[cell]);
+				if (count == 1)
+					return cell;
+				if (count > 0 && count < minimum) {
+					minimum = count;
+					index = cell;
+				}
+			}
+		return index;
 	}
 
 	/**
-	 * Updates the possible values per column.
+	 * Returns whether the sudoku can still be solved.
 	 * 
-	 * @param column
-	 *            The column to update.
+	 * @return whether the sudoku can still be solved.
 	 */
-	public void updateColumn(int column) {
-		int[] usedValues = new int[10];
-		int index = 0;
+	private boolean canBeSolved() {
+		if (set == cells)
+			return true;
+		for (int cell = 0; cell < cells; cell++)
+			if (numbers[cell] == 0 && candidates[cell] == 0)
+				return false;
+		return true;
+	}
 
-		for (int row = 0; row < 9; ++row)
-			if (numbers[row][column] > 0)
-				usedValues[index++] = numbers[row][column];
-		for (int row = 0; row < 9; ++row)
-			if (numbers[row][column] == 0)
-				for (int u = 0; u < index; u++)
-					possible[row][column][usedValues[u] - 1] = false;
+	/**
+	 * Checks whether the current state of the sudoku is a valid solution. <br>
+	 * <br>
+	 * The solution is valid when each subgrid only contains each number between
+	 * 1 and size once and each row and column only contains each number once.
+	 * 
+	 * @return whether the current state is a valid solution.
+	 */
+	public boolean isValidSolution() {
+		if (set < cells)
+			return false;
+		// Since a value is never placed twice in the same row, column or
+		// subgrid, every unit is complete when all masks are full.
+		for (int i = 0; i < size; i++)
+			if (rows[i] != all || columns[i] != all || boxes[i] != all)
+				return false;
+		flushChanges();
+		notifySolved();
+		return true;
+	}
+
+	/**
+	 * This method updates the possible values and the trail from scratch by
+	 * replaying the eliminations of the assigned cells in order.
+	 */
+	private void update() {
+		Arrays.fill(candidates, all);
+		trailLength = 0;
+		for (int i = 0; i < set; i++)
+			eliminate(assigned[i], 1 << (numbers[assigned[i]] - 1));
 	}
 
 	/**
@@ -404,7 +1070,48 @@ public class Sudoku {
 	 * @return the value of the sudoku at the given position.
 	 */
 	public int getValueAt(int row, int column) {
-		return numbers[row][column];
+		return numbers[row * size + column];
+	}
+
+	/**
+	 * Returns the sudoku as a string with a character per cell, where 0 is an
+	 * empty cell and the values above 9 are the letters A to P.
+	 * 
+	 * @return the sudoku as a string.
+	 */
+	public String getSudokuString() {
+		char[] result = new char[cells];
+		for (int cell = 0; cell < cells; cell++)
+			result[cell] = Layout.toChar(numbers[cell]);
+		return new String(result);
+	}
+
+	/**
+	 * Returns the number of rows and columns, which is also the number of
+	 * different values.
+	 * 
+	 * @return the size of the sudoku.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of rows and columns of a subgrid.
+	 * 
+	 * @return the size of a subgrid.
+	 */
+	public int getBoxSize() {
+		return layout.getBoxSize();
+	}
+
+	/**
+	 * Returns the geometry of the sudoku.
+	 * 
+	 * @return the layout of the sudoku.
+	 */
+	public Layout getLayout() {
+		return layout;
 	}
 
 	/**
@@ -419,7 +1126,10 @@ public class Sudoku {
 	 * @return blank is always possible. Else the possible list is consulted.
 	 */
 	public boolean isPossible(int row, int y, int value) {
-		return value == 0 || possible[row][y][value - 1];
+		int cell = row * size + y;
+		int mask = numbers[cell] == 0 ? candidates[cell] : all
+				& ~occupied(cell);
+		return value == 0 || (mask & (1 << (value - 1))) != 0;
 	}
 
 	/**
@@ -428,7 +1138,7 @@ public class Sudoku {
 	 * @return whether the given value belongs to the original problem.
 	 */
 	public boolean isAssignment(int row, int column) {
-		return original[row][column];
+		return original[row * size + column];
 	}
 
 	/**
@@ -442,6 +1152,12 @@ public class Sudoku {
 	public void addListener(ChangeListener listener) {
 		if (listener == null)
 			return;
+		if (listeners.isEmpty()) {
+			// Nothing was recorded without listeners.
+			System.arraycopy(numbers, 0, reported, 0, cells);
+			changedCount = 0;
+			Arrays.fill(pending, false);
+		}
 		listeners.add(listener);
 	}
 
@@ -458,39 +1174,56 @@ public class Sudoku {
 	}
 
 	/**
-	 * Notifies the listeners that the value at the given position has changed
-	 * from value.
+	 * Sets the number of calls of {@link #doStep()} after which the listeners
+	 * are notified of the changes. The changes of a cell in between are
+	 * coalesced into a single change to its final value. With an interval of
+	 * 0 the listeners are only notified when a solution is found or when
+	 * {@link #flushChanges()} is called.
 	 * 
-	 * @param x
-	 *            The row of the changed element.
-	 * @param y
-	 *            The column of the changed element.
-	 * @param previous
-	 *            The previous value of the number.
-	 * @param next
-	 *            The new value of the number.
+	 * @param steps
+	 *            The number of steps between two notifications.
 	 */
-	private void notifyChange(int x, int y, int previous, int next) {
-		for (ChangeListener listener : listeners)
-			listener.changed(x, y, previous, next);
+	public void setNotificationInterval(int steps) {
+		notificationInterval = Math.max(0, steps);
 	}
 
 	/**
-	 * Notifies the listeners that the value at the given position has changed
-	 * from value.
+	 * Returns the number of calls of {@link #doStep()} after which the
+	 * listeners are notified of the changes.
 	 * 
-	 * @param x
-	 *            The row of the changed element.
-	 * @param y
-	 *            The column of the changed element.
-	 * @param previous
-	 *            The previous value of the number.
-	 * @param next
-	 *            The new value of the number.
+	 * @return the number of steps between two notifications.
+	 */
+	public int getNotificationInterval() {
+		return notificationInterval;
+	}
+
+	/**
+	 * Notifies the listeners of every cell whose value differs from the value
+	 * which was last reported to them.
+	 */
+	public void flushChanges() {
+		steps = 0;
+		for (int i = 0; i < changedCount; i++) {
+			int cell = changed[i];
+			pending[cell] = false;
+			int previous = reported[cell];
+			if (previous == numbers[cell])
+				continue;
+			reported[cell] = numbers[cell];
+			// An indexed loop, since an iterator would be allocated per cell.
+			for (int k = 0; k < listeners.size(); k++)
+				listeners.get(k).changed(cell / size, cell % size, previous,
+						numbers[cell]);
+		}
+		changedCount = 0;
+	}
+
+	/**
+	 * Notifies the listeners that a solution was found.
 	 */
 	private void notifySolved() {
-		for (ChangeListener listener : listeners)
-			listener.solved();
+		for (int i = 0; i < listeners.size(); i++)
+			listeners.get(i).solved();
 	}
 
 	/*
@@ -500,13 +1233,15 @@ public class Sudoku {
 	 */
 	@Override
 	public String toString() {
-		String result = "";
-		for (int i = 0; i < 9; ++i) {
-			for (int k = 0; k < 9; ++k)
-				result += (numbers[i][k] == 0 ? "-" : numbers[i][k]) + " ";
-			result += "\n";
+		StringBuilder result = new StringBuilder(2 * cells + size);
+		for (int i = 0; i < size; ++i) {
+			for (int k = 0; k < size; ++k) {
+				int value = numbers[i * size + k];
+				result.append(value == 0 ? '-' : Layout.toChar(value)).append(' ');
+			}
+			result.append('\n');
 		}
 
-		return result;
+		return result.toString();
 	}
 }
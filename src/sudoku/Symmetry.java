@@ -0,0 +1,71 @@
+package sudoku;
+
+/**
+ * The symmetries of the clues of a generated sudoku. Cells which are mapped
+ * onto each other by the symmetry are either all clues or all empty.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public enum Symmetry {
+	// No symmetry.
+	NONE,
+	// Symmetric under a rotation of 180 degrees.
+	ROTATIONAL,
+	// Symmetric under a rotation of 90 degrees.
+	QUARTER,
+	// Symmetric under a reflection in the vertical axis.
+	MIRROR,
+	// Symmetric under a reflection in the main diagonal.
+	DIAGONAL;
+
+	/**
+	 * Returns the cells which are mapped onto each other by this symmetry,
+	 * starting with the given cell.
+	 *
+	 * @param cell
+	 *            The index of the cell (row * size + column).
+	 * @param size
+	 *            The number of rows and columns of the sudoku.
+	 * @return the distinct cells of the orbit of the cell.
+	 */
+	public int[] getOrbit(int cell, int size) {
+		int r = cell / size;
+		int c = cell % size;
+		int last = size - 1;
+		switch (this) {
+		case ROTATIONAL:
+			return distinct(cell, (last - r) * size + last - c);
+		case QUARTER:
+			return distinct(cell, c * size + last - r, (last - r) * size
+					+ last - c, (last - c) * size + r);
+		case MIRROR:
+			return distinct(cell, r * size + last - c);
+		case DIAGONAL:
+			return distinct(cell, c * size + r);
+		default:
+			return new int[] { cell };
+		}
+	}
+
+	/**
+	 * Returns the given cells without duplicates, in the same order.
+	 *
+	 * @param cells
+	 *            The cells.
+	 * @return the distinct cells.
+	 */
+	private static int[] distinct(int... cells) {
+		int count = 0;
+		int[] result = new int[cells.length];
+		outer: for (int cell : cells) {
+			for (int i = 0; i < count; i++)
+				if (result[i] == cell)
+					continue outer;
+			result[count++] = cell;
+		}
+		int[] orbit = new int[count];
+		System.arraycopy(result, 0, orbit, 0, count);
+		return orbit;
+	}
+}
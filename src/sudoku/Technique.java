@@ -0,0 +1,66 @@
+package sudoku;
+
+/**
+ * The human solving techniques used by the {@link Grader}, from the easiest to
+ * the hardest.
+ *
+ * @author Niels
+ * @version 0.1
+ */
+public enum Technique {
+	// A cell with a single candidate.
+	NAKED_SINGLE("naked single"),
+	// A value with a single place in a row, column or subgrid.
+	HIDDEN_SINGLE("hidden single"),
+	// The candidates of a value in a subgrid lie on one line, or the
+	// candidates of a value on a line lie in one subgrid.
+	LOCKED_CANDIDATES("locked candidates"),
+	// Two cells of a unit with the same two candidates.
+	NAKED_PAIR("naked pair"),
+	// Two values with the same two places in a unit.
+	HIDDEN_PAIR("hidden pair"),
+	// Three cells of a unit with three candidates together.
+	NAKED_TRIPLE("naked triple"),
+	// Three values with three places together in a unit.
+	HIDDEN_TRIPLE("hidden triple"),
+	// A value with the same two places in two rows or two columns.
+	X_WING("x-wing"),
+	// A value with three places together in three rows or three columns.
+	SWORDFISH("swordfish"),
+	// A cell with two candidates and two peers completing a triangle.
+	XY_WING("xy-wing"),
+	// A chain of cells with two candidates linked by their values.
+	XY_CHAIN("xy-chain");
+
+	// The name of the technique.
+	private final String name;
+
+	/**
+	 * Creates a technique with the given name.
+	 *
+	 * @param name
+	 *            The name of the technique.
+	 */
+	private Technique(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name of the technique.
+	 *
+	 * @return the name of the technique.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Enum#toString()
+	 */
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -9,6 +9,8 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Shell;
 
+import sudoku.Layout;
+
 /**
  * A dialog for chosing a value for a particular field.
  * 
@@ -35,12 +37,13 @@ public class ChoiceDialog {
 		// Create the shell.
 		final Shell shell = new Shell(parent,SWT.DIALOG_TRIM| SWT.APPLICATION_MODAL);
 
-		// Layout the cell.
-		GridLayout layout = new GridLayout(3, true);
+		// Layout the cell, with a column of buttons per column of a subgrid.
+		int boxSize = gui.getSudoku().getBoxSize();
+		GridLayout layout = new GridLayout(boxSize, true);
 		shell.setLayout(layout);
 
-		// Add nine buttons to decide the value.
-		for (int i = 1; i <= 9; i++) {
+		// Add a button per value to decide the value.
+		for (int i = 1; i <= gui.getSudoku().getSize(); i++) {
 			// Create the button.
 			Button b = new Button(shell, SWT.PUSH);
 
@@ -52,7 +55,7 @@ public class ChoiceDialog {
 
 			// Customize the button.
 			b.setLayoutData(d);
-			b.setText("" + index);
+			b.setText("" + Layout.toChar(index));
 
 			if (gui.getSudoku().isPossible(row, column, index)) {
 				// Add a listener.
@@ -91,7 +94,7 @@ public class ChoiceDialog {
 		d.horizontalAlignment = SWT.FILL;
 		d.grabExcessHorizontalSpace = false;
 		d.heightHint = 36;
-		d.horizontalSpan = 3;
+		d.horizontalSpan = boxSize;
 		b.addSelectionListener(new SelectionListener() {
 			/*
 			 * (non-Javadoc)
@@ -6,6 +6,7 @@ import io.SudokuSaver;
 import java.io.File;
 
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.SWTException;
 import org.eclipse.swt.events.ControlEvent;
 import org.eclipse.swt.events.ControlListener;
 import org.eclipse.swt.events.SelectionEvent;
@@ -34,6 +35,11 @@ import org.eclipse.swt.widgets.Monitor;
 import org.eclipse.swt.widgets.Scale;
 import org.eclipse.swt.widgets.Shell;
 
+import sudoku.Grid;
+import sudoku.Layout;
+import sudoku.SolveTrace;
+import sudoku.SolverEngine;
+import sudoku.SolverEngines;
 import sudoku.Sudoku;
 
 /**
@@ -49,8 +55,18 @@ public class GUI {
 	public static Shell shell = new Shell(display);
 	// The size for the labels with the numbers.
 	public static final int LABELSIZE = 72;
+	// The number of changes after which the recording is replayed, before the
+	// solving process is recorded further.
+	private static final int TRACE_LIMIT = 1 << 22;
+	// The time between two frames of the replay in milliseconds.
+	private static final int FRAME_TIME = 16;
+	// The largest number of cells of a sudoku.
+	private static final int MAX_CELLS = Layout.MAX_BOX_SIZE
+			* Layout.MAX_BOX_SIZE * Layout.MAX_BOX_SIZE * Layout.MAX_BOX_SIZE;
 	// The sudoku to be solved.
-	private Sudoku sudoku;
+	private volatile Sudoku sudoku;
+	// The engine which solves the sudoku.
+	private volatile SolverEngine engine;
 	// The black color
 	public final static Color BLACK = display.getSystemColor(SWT.COLOR_BLACK);
 	// The white color
@@ -64,15 +80,83 @@ public class GUI {
 	// The previous changed text
 	private Point previous;
 	// Whether we are solving the sudoku
-	private boolean solving = false;
+	private volatile boolean solving = false;
 	// Flag for pauzing the solving process.
-	private boolean pauze = false;
+	private volatile boolean pauze = false;
 	// Flag whether all solutions have been found.
 	private boolean allfound = false;
+	// Flag whether a solution has been found since the last (re)start.
+	private boolean solutionFound = false;
 	// Execution speed in number of execution steps per second.
-	private int stepsPerSecond = 1;
+	private volatile int stepsPerSecond = 1;
+	// The thread which solves the sudoku in the background.
+	private Thread worker;
+	// The lock of the changes which are not shown yet.
+	private final Object changeLock = new Object();
+	// The cells whose changes are not shown yet, in the order of their first
+	// change.
+	private int[] changedCells = new int[MAX_CELLS];
+	// The cells of the changes which are being shown.
+	private int[] shownCells = new int[MAX_CELLS];
+	// The values of the changes which are being shown.
+	private final int[] shownValues = new int[MAX_CELLS];
+	// The latest value of each cell, valid for the changed cells.
+	private final int[] changedValues = new int[MAX_CELLS];
+	// Whether a cell is in the list of changed cells.
+	private final boolean[] changePending = new boolean[MAX_CELLS];
+	// The number of changed cells.
+	private int changedCount = 0;
+	// Whether the changes are scheduled to be shown.
+	private boolean showScheduled = false;
 	// The listener of the sudoku.
 	private ChangeListener listener;
+	// The recorded solving process which is replayed, or null.
+	private SolveTrace trace;
+	// The number of changes of the trace which are shown.
+	private int position = 0;
+	// The cell of the last shown change of the trace, or -1.
+	private int highlighted = -1;
+	// Whether the end of the trace was reached.
+	private boolean replayed = false;
+	// Whether a frame of the replay is scheduled.
+	private boolean playing = false;
+	// The number of changes which are due to be shown, but less than one.
+	private double due = 0;
+	// The time of the last frame of the replay in nanoseconds.
+	private long frameTime;
+	// Shows the changes of the trace which are due since the last frame.
+	private final Runnable frame = new Runnable() {
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			playing = false;
+			if (trace == null || replayed || !solving || pauze
+					|| canvas.isDisposed())
+				return;
+			long now = System.nanoTime();
+			int speed = stepsPerSecond;
+			int remaining = trace.getLength() - position;
+			int steps = remaining;
+			if (speed < 1000) {
+				due += (now - frameTime) * speed / 1e9;
+				steps = (int) Math.min(due, remaining);
+				due -= steps;
+			}
+			frameTime = now;
+			seek(position + steps);
+			if (position < trace.getLength()) {
+				playing = true;
+				display.timerExec(FRAME_TIME, this);
+			} else
+				finishReplay();
+		}
+	};
+	// The slider with the position in the replay.
+	private Scale positionSlider;
 	// The start button
 	private Button startButton;
 	// The pauze button
@@ -83,12 +167,27 @@ public class GUI {
 	private SudokuCanvas canvas;
 
 	/**
-	 * Creates a new gui for the given sudoku.
+	 * Creates a new gui for the given sudoku, which is solved with the default
+	 * engine.
 	 * 
 	 * @param sudoku
 	 *            The sudoku which will be solved.
 	 */
 	public GUI(Sudoku sudoku) {
+		this(sudoku, SolverEngines.getInstance().getDefaultEngine());
+	}
+
+	/**
+	 * Creates a new gui for the given sudoku.
+	 * 
+	 * @param sudoku
+	 *            The sudoku which will be solved.
+	 * @param engine
+	 *            The engine which solves the sudoku.
+	 */
+	public GUI(Sudoku sudoku, SolverEngine engine) {
+		this.engine = engine;
+
 		// Get the main monitor
 		Monitor monitor = display.getPrimaryMonitor();
 
@@ -126,6 +225,8 @@ public class GUI {
 		while (!shell.isDisposed())
 			if (!display.readAndDispatch())
 				display.sleep();
+		solving = false;
+		joinWorker();
 		display.dispose();
 	}
 
@@ -134,10 +235,17 @@ public class GUI {
 	 * 
 	 * @param sudoku
 	 */
-	public void setSudoku(Sudoku sudoku) {
+	public void setSudoku(final Sudoku sudoku) {
+		solving = false;
+		joinWorker();
 		if (this.sudoku != null)
 			this.sudoku.removeListener(listener);
 		this.sudoku = sudoku;
+		synchronized (changeLock) {
+			for (int i = 0; i < changedCount; i++)
+				changePending[changedCells[i]] = false;
+			changedCount = 0;
+		}
 
 		// Set the buttons
 		startButton.setText("Start");
@@ -148,8 +256,10 @@ public class GUI {
 		solving = false;
 		pauze = false;
 		previous = null;
+		solutionFound = false;
+		clearTrace();
 
-		// Add a change listener
+		// Add a change listener, which may be called by the worker thread.
 		listener = new ChangeListener() {
 			/*
 			 * (non-Javadoc)
@@ -158,22 +268,7 @@ public class GUI {
 			 */
 			@Override
 			public void changed(int x, int y, int prev, int next) {
-				setText(x, y, next);
-				/*
-				 * If we are not solving, we set the color to blue to indicate
-				 * that the given value is constant.
-				 * 
-				 * If we are solving we set it to red and the color of the
-				 * previous assignment, if it exists to black.
-				 */
-				if (solving) {
-					if (previous == null)
-						previous = new Point(x, y);
-					else
-						setColor(previous.x, previous.y, BLACK);
-					setColor(x, y, RED);
-				} else
-					setColor(x, y, BLUE);
+				recordChange(x * sudoku.getSize() + y, next);
 			}
 
 			/*
@@ -183,11 +278,19 @@ public class GUI {
 			 */
 			@Override
 			public void solved() {
-				copySudokuContent();
-				startButton.setText("Find next solution?");
-				startButton.setEnabled(true);
-				pauzeButton.setEnabled(false);
-				pauzeButton.setSelection(false);
+				post(new Runnable() {
+					@Override
+					public void run() {
+						if (GUI.this.sudoku != sudoku)
+							return;
+						showChanges();
+						copySudokuContent();
+						startButton.setText("Find next solution?");
+						startButton.setEnabled(true);
+						pauzeButton.setEnabled(false);
+						pauzeButton.setSelection(false);
+					}
+				});
 			}
 		};
 		this.sudoku.addListener(listener);
@@ -196,13 +299,110 @@ public class GUI {
 		copySudokuContent();
 	}
 
+	/**
+	 * Records the change of a cell, to be shown by the display thread together
+	 * with the other changes since the last time they were shown.
+	 * 
+	 * @param cell
+	 *            The index of the cell (x * size + y).
+	 * @param value
+	 *            The new value of the cell.
+	 */
+	private void recordChange(int cell, int value) {
+		synchronized (changeLock) {
+			changedValues[cell] = value;
+			if (!changePending[cell]) {
+				changePending[cell] = true;
+				changedCells[changedCount++] = cell;
+			}
+			if (showScheduled)
+				return;
+			showScheduled = true;
+		}
+		post(new Runnable() {
+			@Override
+			public void run() {
+				showChanges();
+			}
+		});
+	}
+
+	/**
+	 * Shows the recorded changes of the cells. Must be called by the display
+	 * thread.
+	 */
+	private void showChanges() {
+		int count;
+		synchronized (changeLock) {
+			showScheduled = false;
+			count = changedCount;
+			int[] cells = changedCells;
+			changedCells = shownCells;
+			shownCells = cells;
+			changedCount = 0;
+			for (int i = 0; i < count; i++) {
+				shownValues[i] = changedValues[cells[i]];
+				changePending[cells[i]] = false;
+			}
+		}
+		if (canvas.isDisposed())
+			return;
+		int size = sudoku.getSize();
+		for (int i = 0; i < count; i++) {
+			int x = shownCells[i] / size;
+			int y = shownCells[i] % size;
+			setText(x, y, shownValues[i]);
+			/*
+			 * If we are not solving, we set the color to blue to indicate
+			 * that the given value is constant.
+			 * 
+			 * If we are solving we set it to red and the color of the
+			 * previous assignment, if it exists to black.
+			 */
+			if (solving) {
+				if (previous == null)
+					previous = new Point(x, y);
+				else
+					setColor(previous.x, previous.y, BLACK);
+				setColor(x, y, RED);
+			} else
+				setColor(x, y, BLUE);
+		}
+	}
+
+	/**
+	 * Runs the given runnable on the display thread, unless the display is
+	 * disposed.
+	 * 
+	 * @param runnable
+	 *            The runnable to run.
+	 */
+	private static void post(Runnable runnable) {
+		try {
+			if (!display.isDisposed())
+				display.asyncExec(runnable);
+		} catch (SWTException e) {
+			// The display was disposed in the meantime.
+		}
+	}
+
+	/**
+	 * Returns the number of rows and columns of the sudoku, which is 9 before
+	 * the sudoku is set.
+	 * 
+	 * @return the number of rows and columns.
+	 */
+	private int getGridSize() {
+		return sudoku == null ? 9 : sudoku.getSize();
+	}
+
 	/**
 	 * Copies the content from the sudoku.
 	 */
 	private void copySudokuContent() {
 		// Read the content of the sudoku
-		for (int i = 0; i < 9; i++)
-			for (int k = 0; k < 9; k++) {
+		for (int i = 0; i < sudoku.getSize(); i++)
+			for (int k = 0; k < sudoku.getSize(); k++) {
 				/*
 				 * If we are not solving, we set the color to blue to indicate
 				 * that the given value is constant.
@@ -253,7 +453,7 @@ public class GUI {
 	 *            The value to put in the square.
 	 */
 	private void setText(int row, int column, int value) {
-		canvas.setDirty(row, column);
+		canvas.setValue(row, column, value);
 	}
 
 	/**
@@ -298,8 +498,8 @@ public class GUI {
 		d.grabExcessVerticalSpace = true;
 		d.minimumWidth = 576;
 		d.minimumHeight = 576;
-		d.widthHint = (min / 9) * 9;
-		d.heightHint = (min / 9) * 9;
+		d.widthHint = (min / getGridSize()) * getGridSize();
+		d.heightHint = (min / getGridSize()) * getGridSize();
 		canvas.setLayoutData(d);
 
 		c.addControlListener(new ControlListener() {
@@ -321,8 +521,8 @@ public class GUI {
 				d.grabExcessVerticalSpace = true;
 				d.minimumWidth = 576;
 				d.minimumHeight = 576;
-				d.widthHint = (min / 9) * 9;
-				d.heightHint = (min / 9) * 9;
+				d.widthHint = (min / getGridSize()) * getGridSize();
+				d.heightHint = (min / getGridSize()) * getGridSize();
 				canvas.setLayoutData(d);
 				canvas.redraw();
 			}
@@ -433,6 +633,26 @@ public class GUI {
 		slider.setPageIncrement(100);
 		slider.setEnabled(true);
 
+		// Create the group of the replay
+		g = new Group(c, SWT.SHADOW_ETCHED_OUT);
+		g.setText("Replay position:");
+		g.setLayout(noMarginGridLayout(1, true, 8));
+		d = new GridData();
+		d.horizontalAlignment = SWT.FILL;
+		d.grabExcessHorizontalSpace = true;
+		d.horizontalSpan = 3;
+		g.setLayoutData(d);
+
+		// Create the slider with the position in the replay
+		positionSlider = new Scale(g, SWT.HORIZONTAL);
+		d = new GridData();
+		d.horizontalAlignment = SWT.FILL;
+		d.grabExcessHorizontalSpace = true;
+		positionSlider.setLayoutData(d);
+		positionSlider.setMinimum(0);
+		positionSlider.setMaximum(1);
+		positionSlider.setEnabled(false);
+
 		startButton.addSelectionListener(new SelectionListener() {
 			/*
 			 * (non-Javadoc)
@@ -443,8 +663,11 @@ public class GUI {
 			 */
 			@Override
 			public void widgetSelected(SelectionEvent arg0) {
-				if (allfound)
+				if (allfound) {
+					joinWorker();
 					sudoku.reset();
+					solutionFound = false;
+				}
 				allfound = false;
 				startButton.setEnabled(false);
 				pauzeButton.setEnabled(true);
@@ -472,11 +695,15 @@ public class GUI {
 				pauzeButton.setSelection(false);
 				pauzeButton.setEnabled(false);
 				solving = false;
+				joinWorker();
 				pauze = false;
 				previous = null;
 				allfound = false;
+				solutionFound = false;
+				clearTrace();
 				sudoku.reset();
-
+				// The replay may have shown another state than the sudoku.
+				copySudokuContent();
 			}
 
 			@Override
@@ -536,17 +763,55 @@ public class GUI {
 			}
 		});
 
+		positionSlider.addSelectionListener(new SelectionListener() {
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see
+			 * org.eclipse.swt.events.SelectionListener#widgetSelected(org.eclipse
+			 * .swt.events.SelectionEvent)
+			 */
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				if (trace != null)
+					seek(positionSlider.getSelection());
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see
+			 * org.eclipse.swt.events.SelectionListener#widgetDefaultSelected
+			 * (org.eclipse.swt.events.SelectionEvent)
+			 */
+			@Override
+			public void widgetDefaultSelected(SelectionEvent arg0) {
+			}
+		});
+
 		return c;
 	}
 
 	/**
-	 * Start the solving process.
+	 * Starts the solving process. A trace which has not been replayed
+	 * completely is replayed further, otherwise the solving process is
+	 * recorded on a worker thread at full speed and replayed afterwards, so
+	 * that the display thread stays responsive.
 	 */
 	private void start() {
 		solving = true;
+		pauze = false;
 		pauzeButton.setEnabled(true);
 		pauzeButton.setSelection(false);
-		Runnable runnable = new Runnable() {
+		if (worker != null && worker.isAlive())
+			// The replay starts when the recording is done.
+			return;
+		if (trace != null && !replayed) {
+			play();
+			return;
+		}
+		joinWorker();
+		worker = new Thread(new Runnable() {
 			/*
 			 * (non-Javadoc)
 			 * 
@@ -554,58 +819,184 @@ public class GUI {
 			 */
 			@Override
 			public void run() {
-				if (solving == false)
+				record(sudoku);
+			}
+		}, "sudoku-solver");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Solves the given sudoku at full speed until it is solved, until the
+	 * trace is full or until solving is paused or stopped, and replays the
+	 * trace of the changes afterwards. Is run by the worker thread.
+	 * 
+	 * @param sudoku
+	 *            The sudoku to solve.
+	 */
+	private void record(final Sudoku sudoku) {
+		final SolveTrace trace = new SolveTrace(sudoku, TRACE_LIMIT);
+		long startTime = System.currentTimeMillis();
+		boolean finished = false;
+		// Only the trace listens while recording, the changes are shown by
+		// the replay.
+		sudoku.addListener(trace);
+		sudoku.removeListener(listener);
+		sudoku.setNotificationInterval(1);
+		try {
+			while (!finished && solving && !pauze && !trace.isFull())
+				finished = engine.doStep(sudoku);
+		} catch (IllegalStateException e) {
+			// There is no solution, which is shown at the end of the replay.
+			trace.exhausted();
+		} finally {
+			sudoku.flushChanges();
+			sudoku.addListener(listener);
+			sudoku.removeListener(trace);
+		}
+		if (finished)
+			System.out.println("Finished solving in: "
+					+ (System.currentTimeMillis() - startTime) + "ms, "
+					+ trace.getLength() + " changes recorded");
+		post(new Runnable() {
+			@Override
+			public void run() {
+				if (GUI.this.sudoku != sudoku || !solving)
 					return;
-				try {
-					if (stepsPerSecond <= 100) {
-						if (!sudoku.doStep() && !pauze)
-							display.timerExec(1000 / stepsPerSecond, this);
-					} else if (stepsPerSecond < 1000) {
-						int i = 0;
-						boolean finished = false;
-						while (!finished && !pauze
-								&& (i++ < stepsPerSecond / 10))
-							finished = sudoku.doStep();
-						if (!finished && !pauze)
-							display.timerExec(10, this);
-					} else {
-						try {
-							sudoku.removeListener(listener);
-							long startTime = System.currentTimeMillis();
-							while (!sudoku.doStep() && !pauze)
-								;
-							System.out.println("Finished solving in: "
-									+ (System.currentTimeMillis() - startTime)
-									+ "ms");
-							listener.solved();
-							copySudokuContent();
-							sudoku.addListener(listener);
-						} catch (IllegalStateException e) {
-							new MessageDialog(shell,
-									"No solution could be found!");
-							copySudokuContent();
-							solving = false;
-							allfound = true;
-							startButton.setEnabled(true);
-							startButton.setText("Restart?");
-							pauzeButton.setEnabled(false);
-							pauzeButton.setSelection(false);
-							sudoku.addListener(listener);
-						}
-					}
-				} catch (IllegalStateException e) {
-					new MessageDialog(shell, "No solution could be found!");
-					copySudokuContent();
-					solving = false;
-					allfound = true;
-					startButton.setEnabled(true);
-					startButton.setText("Restart?");
-					pauzeButton.setEnabled(false);
-					pauzeButton.setSelection(false);
-				}
+				replay(trace);
 			}
-		};
-		display.timerExec(1, runnable);
+		});
+	}
+
+	/**
+	 * Starts the replay of the given trace from its start. Must be called by
+	 * the display thread.
+	 * 
+	 * @param trace
+	 *            The trace to replay.
+	 */
+	private void replay(SolveTrace trace) {
+		this.trace = trace;
+		position = 0;
+		highlighted = -1;
+		replayed = false;
+
+		// Show the start of the trace, since the previous trace may have
+		// been scrubbed back.
+		Grid start = trace.getStart();
+		int size = sudoku.getSize();
+		for (int i = 0; i < size; i++)
+			for (int k = 0; k < size; k++) {
+				canvas.setColor(i, k, sudoku.isAssignment(i, k) ? BLUE : BLACK);
+				setText(i, k, start.getValueAt(i, k));
+			}
+
+		positionSlider.setMaximum(Math.max(1, trace.getLength()));
+		positionSlider.setSelection(0);
+		positionSlider.setEnabled(trace.getLength() > 0);
+		play();
+	}
+
+	/**
+	 * Schedules the next frame of the replay, unless it is scheduled already.
+	 */
+	private void play() {
+		if (playing)
+			return;
+		playing = true;
+		due = 0;
+		frameTime = System.nanoTime();
+		display.timerExec(FRAME_TIME, frame);
+	}
+
+	/**
+	 * Shows the state of the trace after the given number of changes, by
+	 * applying the next values of the changes forwards or the previous values
+	 * backwards. The cell of the last change is shown in red.
+	 * 
+	 * @param target
+	 *            The number of changes to show.
+	 */
+	private void seek(int target) {
+		int size = sudoku.getSize();
+		target = Math.max(0, Math.min(target, trace.getLength()));
+		for (; position < target; position++) {
+			int cell = trace.getCell(position);
+			setText(cell / size, cell % size, trace.getNext(position));
+		}
+		while (position > target) {
+			position--;
+			int cell = trace.getCell(position);
+			setText(cell / size, cell % size, trace.getPrevious(position));
+		}
+
+		if (highlighted >= 0)
+			canvas.setColor(highlighted / size, highlighted % size, BLACK);
+		highlighted = position > 0 ? trace.getCell(position - 1) : -1;
+		if (highlighted >= 0)
+			canvas.setColor(highlighted / size, highlighted % size, RED);
+		positionSlider.setSelection(position);
+	}
+
+	/**
+	 * Shows the outcome of the replayed trace: the solution, that there is no
+	 * solution when the search was exhausted, or the next recording when the
+	 * trace was full or the recording was paused.
+	 */
+	private void finishReplay() {
+		replayed = true;
+		if (trace.isSolved()) {
+			solutionFound = true;
+			highlighted = -1;
+			copySudokuContent();
+			startButton.setText("Find next solution?");
+			startButton.setEnabled(true);
+			pauzeButton.setEnabled(false);
+			pauzeButton.setSelection(false);
+		} else if (!trace.isExhausted())
+			start();
+		else {
+			new MessageDialog(shell, solutionFound
+					? "No further solution could be found!"
+					: "No solution could be found!");
+			highlighted = -1;
+			copySudokuContent();
+			solving = false;
+			allfound = true;
+			startButton.setEnabled(true);
+			startButton.setText("Restart?");
+			pauzeButton.setEnabled(false);
+			pauzeButton.setSelection(false);
+		}
+	}
+
+	/**
+	 * Discards the trace which is replayed.
+	 */
+	private void clearTrace() {
+		trace = null;
+		position = 0;
+		highlighted = -1;
+		replayed = false;
+		positionSlider.setSelection(0);
+		positionSlider.setEnabled(false);
+	}
+
+	/**
+	 * Waits until the worker thread has stopped, after solving was paused or
+	 * stopped. The worker checks the flags before every step, so this waits
+	 * for the step in progress at most.
+	 */
+	private void joinWorker() {
+		Thread thread = worker;
+		if (thread == null)
+			return;
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		worker = null;
 	}
 
 	/**
@@ -614,10 +1005,8 @@ public class GUI {
 	private void pauze() {
 		if (!pauze)
 			pauze = true;
-		else {
-			pauze = false;
+		else
 			start();
-		}
 	}
 
 	public Menu getMenu(final Shell shell) {
@@ -639,6 +1028,42 @@ public class GUI {
 		MenuItem print = new MenuItem(fileMenu, SWT.PUSH);
 		print.setText("Print");
 
+		MenuItem engineItem = new MenuItem(menu, SWT.CASCADE);
+		engineItem.setText("&Engine");
+
+		Menu engineMenu = new Menu(shell, SWT.DROP_DOWN);
+		engineItem.setMenu(engineMenu);
+
+		for (final String name : SolverEngines.getInstance().getEngineNames()) {
+			MenuItem item = new MenuItem(engineMenu, SWT.RADIO);
+			item.setText(name);
+			item.setSelection(name.equals(engine.getName()));
+			item.addSelectionListener(new SelectionListener() {
+				/*
+				 * (non-Javadoc)
+				 * 
+				 * @see
+				 * org.eclipse.swt.events.SelectionListener#widgetSelected(org
+				 * .eclipse.swt.events.SelectionEvent)
+				 */
+				@Override
+				public void widgetSelected(SelectionEvent arg0) {
+					engine = SolverEngines.getInstance().getEngine(name);
+				}
+
+				/*
+				 * (non-Javadoc)
+				 * 
+				 * @see
+				 * org.eclipse.swt.events.SelectionListener#widgetDefaultSelected
+				 * (org.eclipse.swt.events.SelectionEvent)
+				 */
+				@Override
+				public void widgetDefaultSelected(SelectionEvent arg0) {
+				}
+			});
+		}
+
 		load.addSelectionListener(new SelectionListener() {
 			/*
 			 * (non-Javadoc)
@@ -744,7 +1169,8 @@ public class GUI {
 
 				Rectangle clipping = gc.getClipping();
 				int size = (int) (border
-						* Math.min(clipping.width, clipping.height) / 9) * 9;
+						* Math.min(clipping.width, clipping.height) / sudoku
+						.getSize()) * sudoku.getSize();
 				int x = clipping.x + (clipping.width - size) / 2;
 				int y = clipping.y + (clipping.height - size) / 2;
 
@@ -3,6 +3,8 @@ package swtgui;
 import java.util.Arrays;
 
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.MouseEvent;
 import org.eclipse.swt.events.MouseListener;
 import org.eclipse.swt.events.PaintEvent;
@@ -11,11 +13,13 @@ import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.FontData;
 import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Canvas;
 import org.eclipse.swt.widgets.Composite;
 
+import sudoku.Layout;
 import sudoku.Sudoku;
 
 /**
@@ -24,25 +28,77 @@ import sudoku.Sudoku;
  * @version 0.1
  */
 public class SudokuCanvas extends Canvas {
-	private Color[][] colors = new Color[9][9];
-	private boolean[][] dirty = new boolean[9][9];
+	// The largest number of rows and columns of a sudoku.
+	private static final int MAX_SIZE = Layout.MAX_BOX_SIZE
+			* Layout.MAX_BOX_SIZE;
+	// The time between two frames in milliseconds, about the refresh rate of
+	// a display.
+	private static final int FRAME_TIME = 16;
+	private Color[][] colors = new Color[MAX_SIZE][MAX_SIZE];
+	// The values shown in the squares, which are only changed by the display
+	// thread while the sudoku may be changed by a worker thread.
+	private int[][] values = new int[MAX_SIZE][MAX_SIZE];
+	// The gui showing the sudoku.
+	private final GUI gui;
+	// The image of the lines and the constant values, or null when it has to
+	// be drawn again.
+	private Image background;
+	// The number of rows and columns of the sudoku in the image.
+	private int backgroundSize;
+	// The font of the values and the height it was made for.
+	private Font font;
+	private int fontHeight;
+	// The smallest and largest row and column changed since the last frame.
+	private int firstRow = MAX_SIZE;
+	private int lastRow = -1;
+	private int firstColumn = MAX_SIZE;
+	private int lastColumn = -1;
+	// Whether a frame is scheduled.
+	private boolean frameScheduled;
+	// Draws the changed squares of a frame.
+	private final Runnable frame = new Runnable() {
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			frameScheduled = false;
+			if (isDisposed() || lastRow < 0)
+				return;
+			Rectangle r = getClientArea();
+			int size = gui.getSudoku().getSize();
+			int width = r.width / size;
+			int height = r.height / size;
+			redraw(firstRow * width, firstColumn * height,
+					(lastRow - firstRow + 1) * width, (lastColumn
+							- firstColumn + 1)
+							* height, false);
+			firstRow = firstColumn = MAX_SIZE;
+			lastRow = lastColumn = -1;
+		}
+	};
 
 	/**
 	 * An extension of a canvas for drawing sudokus.
 	 * 
+	 * The changes are collected and drawn together once per frame, from an
+	 * image of the lines and the constant values which is only drawn again
+	 * when the size or the constant values change.
+	 * 
 	 * @param composite
 	 *            The parent composite.
 	 * @param style
 	 *            The style of the composite.
 	 */
 	public SudokuCanvas(Composite composite, final GUI gui, int style) {
-		super(composite, style | SWT.NO_BACKGROUND);
+		super(composite, style | SWT.NO_BACKGROUND | SWT.DOUBLE_BUFFERED);
+		this.gui = gui;
 
 		// Fill with default values.
-		for (int i = 0; i < 9; i++) {
+		for (int i = 0; i < MAX_SIZE; i++)
 			Arrays.fill(colors[i], GUI.BLACK);
-			Arrays.fill(dirty[i], true);
-		}
 
 		// Add a paint listener
 		addPaintListener(new PaintListener() {
@@ -56,14 +112,51 @@ public class SudokuCanvas extends Canvas {
 			@Override
 			public void paintControl(PaintEvent e) {
 				GC gc = e.gc;
+				Rectangle area = getClientArea();
+				int size = gui.getSudoku().getSize();
+				int boxSize = gui.getSudoku().getBoxSize();
+				int width = area.width / size;
+				int height = area.height / size;
+				if (width <= 0 || height <= 0)
+					return;
+
+				Rectangle bounds = background == null ? null : background
+						.getBounds();
+				if (bounds == null || bounds.width != area.width
+						|| bounds.height != area.height
+						|| backgroundSize != size)
+					drawBackground(area, size, boxSize);
+				gc.drawImage(background, e.x, e.y, e.width, e.height, e.x,
+						e.y, e.width, e.height);
+
+				// Draw the values which are not part of the image.
+				gc.setFont(getFont(height));
+				int lastRow = Math.min(size - 1, (e.x + e.width - 1) / width);
+				int lastColumn = Math.min(size - 1, (e.y + e.height - 1)
+						/ height);
+				for (int i = e.x / width; i <= lastRow; i++)
+					for (int k = e.y / height; k <= lastColumn; k++)
+						if (values[i][k] != 0 && colors[i][k] != GUI.BLUE)
+							drawValue(gc, area, i, k, values[i][k], size,
+									colors[i][k]);
+			}
+		});
 
-				for (int i = 0; i < 9; i++)
-					for (int k = 0; k < 9; k++)
-						if (dirty[i][k]) {
-							drawSquare(gc, getClientArea(), i, k,
-									gui.getSudoku(), colors[i][k]);
-							dirty[i][k] = false;
-						}
+		// Release the image and the font.
+		addDisposeListener(new DisposeListener() {
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see
+			 * org.eclipse.swt.events.DisposeListener#widgetDisposed(org.eclipse
+			 * .swt.events.DisposeEvent)
+			 */
+			@Override
+			public void widgetDisposed(DisposeEvent e) {
+				if (background != null)
+					background.dispose();
+				if (font != null)
+					font.dispose();
 			}
 		});
 
@@ -92,10 +185,13 @@ public class SudokuCanvas extends Canvas {
 				if (gui.isSolving())
 					return;
 				Rectangle rectangle = getClientArea();
-				int width = rectangle.width / 9;
-				int height = rectangle.height / 9;
+				int size = gui.getSudoku().getSize();
+				int width = rectangle.width / size;
+				int height = rectangle.height / size;
 				int row = e.x / width;
 				int column = e.y / height;
+				if (row >= size || column >= size)
+					return;
 
 				new ChoiceDialog(GUI.shell, gui, row, column);
 			}
@@ -119,9 +215,10 @@ public class SudokuCanvas extends Canvas {
 	 * drawing area.
 	 */
 	public static void drawSudoku(GC gc, Rectangle rectangle, Sudoku sudoku) {
-		for (int i = 0; i < 9; i++)
-			for (int k = 0; k < 9; k++)
-				drawSquare(gc, rectangle, i, k, sudoku,
+		for (int i = 0; i < sudoku.getSize(); i++)
+			for (int k = 0; k < sudoku.getSize(); k++)
+				drawSquare(gc, rectangle, i, k, sudoku.getValueAt(i, k),
+						sudoku.getSize(), sudoku.getBoxSize(),
 						sudoku.isAssignment(i, k) ? GUI.BLUE : GUI.BLACK);
 	}
 
@@ -137,45 +234,112 @@ public class SudokuCanvas extends Canvas {
 	 *            The row of the square.
 	 * @param column
 	 *            The column of the square.
+	 * @param value
+	 *            The value in the square, 0 when it is empty.
+	 * @param size
+	 *            The number of rows and columns of the sudoku.
+	 * @param boxSize
+	 *            The number of rows and columns of a subgrid.
+	 * @param color
+	 *            The color of the value.
 	 */
 	public static void drawSquare(GC gc, Rectangle rectangle, int row,
-			int column, Sudoku sudoku, Color color) {
-		int width = rectangle.width / 9;
-		int height = rectangle.height / 9;
-		int thick = Math.max(1, width / 30);
-		gc.setForeground(GUI.BLACK);
-		gc.setBackground(GUI.WHITE);
-
-		// Draw the background.
-		gc.fillRectangle(rectangle.x + row * width, rectangle.y + column
-				* height, width - 1, height - 1);
+			int column, int value, int size, int boxSize, Color color) {
+		drawLines(gc, rectangle, row, column, size, boxSize);
 
 		// Adapt the font to the correct size.
-		FontData data = GUI.FONT.getFontData()[0];
-		data.setHeight(height / 2);
-		Font font = new Font(GUI.display, data);
+		Font font = createFont(rectangle.height / size);
 		gc.setFont(font);
+		drawValue(gc, rectangle, row, column, value, size, color);
+		// Cleanup
+		font.dispose();
+	}
+
+	/**
+	 * Creates the font of the values for squares of the given height.
+	 * 
+	 * @param height
+	 *            The height of a square.
+	 * @return the font, which has to be disposed by the caller.
+	 */
+	private static Font createFont(int height) {
+		FontData data = GUI.FONT.getFontData()[0];
+		data.setHeight(Math.max(1, height / 2));
+		return new Font(GUI.display, data);
+	}
+
+	/**
+	 * Draws the value of a square with the current font of the given graphics
+	 * context.
+	 * 
+	 * @param gc
+	 *            The graphics context to draw upon.
+	 * @param rectangle
+	 *            The bounds of the drawing region.
+	 * @param row
+	 *            The row of the square.
+	 * @param column
+	 *            The column of the square.
+	 * @param value
+	 *            The value in the square, 0 when it is empty.
+	 * @param size
+	 *            The number of rows and columns of the sudoku.
+	 * @param color
+	 *            The color of the value.
+	 */
+	private static void drawValue(GC gc, Rectangle rectangle, int row,
+			int column, int value, int size, Color color) {
+		if (value == 0)
+			return;
+		int width = rectangle.width / size;
+		int height = rectangle.height / size;
 
 		// Set the text to draw.
-		String string = sudoku.getValueAt(row, column) == 0 ? " " : ""
-				+ sudoku.getValueAt(row, column);
+		String string = "" + Layout.toChar(value);
 		Point extent = gc.stringExtent(string);
 
 		// Draw the text
 		gc.setForeground(color);
+		gc.setBackground(GUI.WHITE);
 		gc.drawText(string, rectangle.x + row * width + (width - extent.x) / 2,
-				rectangle.y + column * height + (height - extent.y) / 2);
-		// Cleanu
-		font.dispose();
+				rectangle.y + column * height + (height - extent.y) / 2, true);
+	}
+
+	/**
+	 * Draws the background and the lines of an empty square.
+	 * 
+	 * @param gc
+	 *            The graphics context to draw upon.
+	 * @param rectangle
+	 *            The bounds of the drawing region.
+	 * @param row
+	 *            The row of the square.
+	 * @param column
+	 *            The column of the square.
+	 * @param size
+	 *            The number of rows and columns of the sudoku.
+	 * @param boxSize
+	 *            The number of rows and columns of a subgrid.
+	 */
+	private static void drawLines(GC gc, Rectangle rectangle, int row,
+			int column, int size, int boxSize) {
+		int width = rectangle.width / size;
+		int height = rectangle.height / size;
+		int thick = Math.max(1, width / 30);
+		gc.setBackground(GUI.WHITE);
+
+		// Draw the background.
+		gc.fillRectangle(rectangle.x + row * width, rectangle.y + column
+				* height, width - 1, height - 1);
 
 		gc.setBackground(GUI.BLACK);
 
 		// Draw the horizontal lines.
-		if (column == 0 || column == 3 || column == 6)
+		if (column % boxSize == 0)
 			gc.fillRectangle(rectangle.x + row * width, rectangle.y + column
 					* height, width - 1, thick * 2);
-		else if (column == 8)
-			gc.fillRectangle(rectangle.x + row * width, rectangle.y + 9
+		else if (column == size - 1)
+			gc.fillRectangle(rectangle.x + row * width, rectangle.y + size
 					* height - thick * 2 - 1, width - 1, thick * 2);
 		gc.fillRectangle(rectangle.x + row * width, rectangle.y + (column + 1)
 				* height - thick / 2, width - 1, thick / 2);
@@ -183,11 +347,11 @@ public class SudokuCanvas extends Canvas {
 				* height, width - 1, thick / 2 + 1);
 
 		// Draw the vertical lines
-		if (row == 0 || row == 3 || row == 6)
+		if (row % boxSize == 0)
 			gc.fillRectangle(rectangle.x + row * width, rectangle.y + column
 					* height, thick * 2, height - 1);
-		else if (row == 8)
-			gc.fillRectangle(rectangle.x + 9 * width - thick * 2 - 1,
+		else if (row == size - 1)
+			gc.fillRectangle(rectangle.x + size * width - thick * 2 - 1,
 					rectangle.y + column * height, thick * 2, height - 1);
 		gc.fillRectangle(rectangle.x + row * width - thick / 2, rectangle.y
 				+ column * height, thick / 2, height);
@@ -196,7 +360,81 @@ public class SudokuCanvas extends Canvas {
 	}
 
 	/**
-	 * Sets the value of the given row and column.
+	 * Draws the image of the lines and the constant values for the given
+	 * client area.
+	 * 
+	 * @param area
+	 *            The client area of the canvas.
+	 * @param size
+	 *            The number of rows and columns of the sudoku.
+	 * @param boxSize
+	 *            The number of rows and columns of a subgrid.
+	 */
+	private void drawBackground(Rectangle area, int size, int boxSize) {
+		if (background != null)
+			background.dispose();
+		background = new Image(getDisplay(), area.width, area.height);
+		backgroundSize = size;
+		Rectangle rectangle = new Rectangle(0, 0, area.width, area.height);
+		GC gc = new GC(background);
+		try {
+			// The squares do not cover the remainder of the division.
+			gc.setBackground(GUI.WHITE);
+			gc.fillRectangle(rectangle);
+			gc.setFont(getFont(area.height / size));
+			for (int i = 0; i < size; i++)
+				for (int k = 0; k < size; k++) {
+					drawLines(gc, rectangle, i, k, size, boxSize);
+					if (colors[i][k] == GUI.BLUE)
+						drawValue(gc, rectangle, i, k, values[i][k], size,
+								GUI.BLUE);
+				}
+		} finally {
+			gc.dispose();
+		}
+	}
+
+	/**
+	 * Returns the font of the values for squares of the given height, which is
+	 * only created again when the height changes.
+	 * 
+	 * @param height
+	 *            The height of a square.
+	 * @return the font.
+	 */
+	private Font getFont(int height) {
+		if (font == null || fontHeight != height) {
+			if (font != null)
+				font.dispose();
+			font = createFont(height);
+			fontHeight = height;
+		}
+		return font;
+	}
+
+	/**
+	 * Marks the given square as changed and schedules a frame to draw it, if
+	 * none is scheduled yet.
+	 * 
+	 * @param row
+	 *            The row of the changed square.
+	 * @param column
+	 *            The column of the changed square.
+	 */
+	private void changed(int row, int column) {
+		firstRow = Math.min(firstRow, row);
+		lastRow = Math.max(lastRow, row);
+		firstColumn = Math.min(firstColumn, column);
+		lastColumn = Math.max(lastColumn, column);
+		if (!frameScheduled) {
+			frameScheduled = true;
+			getDisplay().timerExec(FRAME_TIME, frame);
+		}
+	}
+
+	/**
+	 * Sets the value of the given row and column. The square is drawn with the
+	 * next frame.
 	 * 
 	 * @param row
 	 *            The row of the value to set.
@@ -205,19 +443,18 @@ public class SudokuCanvas extends Canvas {
 	 * @param value
 	 *            The value to set.
 	 */
-	public void setDirty(int row, int column) {
-		if (isDisposed())
+	public void setValue(int row, int column, int value) {
+		if (isDisposed() || values[row][column] == value)
 			return;
-		Rectangle r = getBounds();
-		int width = r.width / 9;
-		int height = r.height / 9;
-		dirty[row][column] = true;
-
-		redraw(row * width, column * width, width, height, true);
+		values[row][column] = value;
+		if (colors[row][column] == GUI.BLUE)
+			invalidateBackground();
+		changed(row, column);
 	}
 
 	/**
-	 * Sets the color of the given row and column.
+	 * Sets the color of the given row and column. The square is drawn with the
+	 * next frame.
 	 * 
 	 * @param row
 	 *            The row of the value to set.
@@ -227,19 +464,33 @@ public class SudokuCanvas extends Canvas {
 	 *            The color to set.
 	 */
 	public void setColor(int row, int column, Color color) {
-		if (isDisposed())
+		if (isDisposed() || colors[row][column] == color)
 			return;
-		Rectangle r = getBounds();
-		int width = r.width / 9;
-		int height = r.height / 9;
+		if (colors[row][column] == GUI.BLUE || color == GUI.BLUE)
+			invalidateBackground();
 		colors[row][column] = color;
-		dirty[row][column] = true;
-		redraw(row * width, column * width, width, height, true);
+		changed(row, column);
+	}
+
+	/**
+	 * Discards the image of the lines and the constant values, which is drawn
+	 * again with the next paint.
+	 */
+	private void invalidateBackground() {
+		if (background != null) {
+			background.dispose();
+			background = null;
+		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.eclipse.swt.widgets.Control#redraw()
+	 */
+	@Override
 	public void redraw() {
-		for (int i = 0; i < 9; i++)
-			Arrays.fill(dirty[i], true);
+		invalidateBackground();
 		super.redraw();
 	}
 }